@@ -0,0 +1,145 @@
+package com.toutsos.springboot.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool size sweep against a real MySQL: 64 client threads run the service's hot statements
+ * (80% lookups by id, 20% versioned updates) through a Hikari pool of each size, the size
+ * with the best throughput is the one to configure.
+ * MySQL runs in a container limited to -Djmh.mysql.cpus cores (default 2), or the benchmark
+ * targets -Djmh.jdbc.url (with jmh.jdbc.username and jmh.jdbc.password) to measure the real host.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ConnectionPoolSizeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class ConnectionPoolSizeBenchmark {
+
+    private static final int EMPLOYEES = 10_000;
+
+    @Param({"2", "4", "8", "16", "32", "64"})
+    public int poolSize;
+
+    private MySQLContainer<?> mySQLContainer;
+
+    private HikariDataSource dataSource;
+
+    @Setup
+    public void setup() throws SQLException {
+        String jdbcUrl = System.getProperty("jmh.jdbc.url");
+        HikariConfig config = new HikariConfig();
+        if (jdbcUrl == null) {
+            long cpus = Long.getLong("jmh.mysql.cpus", 2);
+            mySQLContainer = new MySQLContainer<>("mysql:latest")
+                    .withDatabaseName("ems")
+                    .withCreateContainerCmdModifier(cmd -> cmd.getHostConfig().withNanoCPUs(cpus * 1_000_000_000L));
+            mySQLContainer.start();
+            config.setJdbcUrl(mySQLContainer.getJdbcUrl());
+            config.setUsername(mySQLContainer.getUsername());
+            config.setPassword(mySQLContainer.getPassword());
+        } else {
+            config.setJdbcUrl(jdbcUrl);
+            config.setUsername(System.getProperty("jmh.jdbc.username", "root"));
+            config.setPassword(System.getProperty("jmh.jdbc.password", "root"));
+        }
+        // same settings as application.properties, only the size changes
+        config.setPoolName("benchmark");
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(poolSize);
+        config.setConnectionTimeout(30_000);
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("cacheResultSetMetadata", "true");
+        config.addDataSourceProperty("cacheServerConfiguration", "true");
+        config.addDataSourceProperty("useLocalSessionState", "true");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        dataSource = new HikariDataSource(config);
+        createEmployees();
+    }
+
+    private void createEmployees() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop table if exists pool_benchmark_employees");
+            statement.execute("create table pool_benchmark_employees (id bigint not null auto_increment, "
+                    + "first_name varchar(255) not null, last_name varchar(255) not null, email varchar(255) not null, "
+                    + "version bigint default 0 not null, primary key (id), unique key (email))");
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into pool_benchmark_employees (first_name, last_name, email) values (?, ?, ?)")) {
+                for (int n = 1; n <= EMPLOYEES; n++) {
+                    insert.setString(1, "First" + n);
+                    insert.setString(2, "Last" + n);
+                    insert.setString(3, "employee" + n + "@gmail.com");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+        if (mySQLContainer != null) {
+            mySQLContainer.stop();
+        }
+    }
+
+    @Benchmark
+    public long request() throws SQLException {
+        long id = ThreadLocalRandom.current().nextLong(1, EMPLOYEES + 1);
+        try (Connection connection = dataSource.getConnection()) {
+            if (ThreadLocalRandom.current().nextInt(10) < 8) {
+                return findById(connection, id);
+            }
+            return updateById(connection, id);
+        }
+    }
+
+    private static long findById(Connection connection, long id) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "select id, first_name, last_name, email, version from pool_benchmark_employees where id = ?")) {
+            select.setLong(1, id);
+            try (ResultSet resultSet = select.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(5) : -1;
+            }
+        }
+    }
+
+    private static long updateById(Connection connection, long id) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "update pool_benchmark_employees set first_name = ?, version = version + 1 where id = ?")) {
+            update.setString(1, "First" + ThreadLocalRandom.current().nextInt());
+            update.setLong(2, id);
+            return update.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.toutsos.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.controller.EmployeeController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//Full request handling (routing, argument binding, Jackson) through MockMvc, without a servlet container
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeControllerBenchmark {
+
+    @Param({"1000"})
+    public int employees;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private MockMvc mockMvc;
+
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong newEmployees = new AtomicLong(1_000_000);
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        EmployeeController employeeController = new EmployeeController(
+                EmployeeFixtures.service(EmployeeFixtures.repositoryWith(employees), cached), objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(employeeController)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @Benchmark
+    public MvcResult getEmployeeById() throws Exception {
+        return mockMvc.perform(get("/api/employees/{id}", ThreadLocalRandom.current().nextLong(1, employees + 1)))
+                .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAllEmployees() throws Exception {
+        return mockMvc.perform(get("/api/employees")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getEmployeesPage() throws Exception {
+        return mockMvc.perform(get("/api/employees").param("limit", "50")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createEmployee() throws Exception {
+        return mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(EmployeeFixtures.employee(newEmployees.incrementAndGet()))))
+                .andReturn();
+    }
+}
@@ -0,0 +1,54 @@
+package com.toutsos.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import com.toutsos.springboot.service.CachingEmployeeService;
+import com.toutsos.springboot.service.EmployeeEmailIndex;
+import com.toutsos.springboot.service.EmployeeSearchIndex;
+import com.toutsos.springboot.service.EmployeeService;
+import com.toutsos.springboot.service.EmployeeServiceImpl;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+//Wires the service the same way the application context does, without starting Spring
+final class EmployeeFixtures {
+
+    static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private EmployeeFixtures() {
+    }
+
+    static Employee employee(long n) {
+        return Employee.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .email("employee" + n + "@gmail.com")
+                .build();
+    }
+
+    static EmployeeRepository repositoryWith(int employees) {
+        return repositoryWith(employees, Duration.ZERO);
+    }
+
+    static EmployeeRepository repositoryWith(int employees, Duration latency) {
+        EmployeeRepository employeeRepository = InMemoryEmployeeRepository.create(latency);
+        for (long n = 1; n <= employees; n++) {
+            employeeRepository.save(employee(n));
+        }
+        return employeeRepository;
+    }
+
+    static EmployeeService service(EmployeeRepository employeeRepository, boolean cached) {
+        EmployeeServiceImpl employeeService = new EmployeeServiceImpl(employeeRepository, new EmployeeEmailIndex(), new EmployeeSearchIndex(),
+                OBJECT_MAPPER);
+        employeeService.warmIndexes();
+        if (!cached) {
+            return employeeService;
+        }
+        return new CachingEmployeeService(employeeService, OBJECT_MAPPER, 10_000, Duration.ofMinutes(10), Duration.ofSeconds(30),
+                DataSize.ofMegabytes(16));
+    }
+}
@@ -0,0 +1,84 @@
+package com.toutsos.springboot.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.model.Employee;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeJsonBenchmark {
+
+    private static final TypeReference<List<Employee>> EMPLOYEE_LIST = new TypeReference<List<Employee>>() {
+    };
+
+    @Param({"1000"})
+    public int listSize;
+
+    // configured like the ObjectMapper Spring Boot gives the controller
+    private ObjectMapper objectMapper;
+
+    private Employee employee;
+
+    private List<Employee> employees;
+
+    private byte[] employeeJson;
+
+    private byte[] employeesJson;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        employees = new ArrayList<>(listSize);
+        for (long n = 1; n <= listSize; n++) {
+            Employee listEmployee = EmployeeFixtures.employee(n);
+            listEmployee.setId(n);
+            employees.add(listEmployee);
+        }
+        employee = employees.get(0);
+        employeeJson = objectMapper.writeValueAsBytes(employee);
+        employeesJson = objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    public byte[] serializeEmployee() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(employee);
+    }
+
+    @Benchmark
+    public Employee deserializeEmployee() throws Exception {
+        return objectMapper.readValue(employeeJson, Employee.class);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] serializeEmployeeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(employees);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Employee> deserializeEmployeeList() throws Exception {
+        return objectMapper.readValue(employeesJson, EMPLOYEE_LIST);
+    }
+}
@@ -0,0 +1,78 @@
+package com.toutsos.springboot.benchmark;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeServiceBenchmark {
+
+    @Param({"10000"})
+    public int employees;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private EmployeeService employeeService;
+
+    private final AtomicLong newEmployees = new AtomicLong(1_000_000);
+
+    @Setup
+    public void setup() {
+        employeeService = EmployeeFixtures.service(EmployeeFixtures.repositoryWith(employees), cached);
+    }
+
+    @Benchmark
+    public Optional<Employee> getEmployeeById() {
+        return employeeService.getEmployeeById(ThreadLocalRandom.current().nextLong(1, employees + 1));
+    }
+
+    @Benchmark
+    public Optional<Employee> getMissingEmployeeById() {
+        return employeeService.getEmployeeById(-ThreadLocalRandom.current().nextLong(1, employees + 1));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Employee> getAllEmployees() {
+        return employeeService.getAllEmployees();
+    }
+
+    @Benchmark
+    public EmployeePage getEmployeesPage() {
+        return employeeService.getEmployeesPage(ThreadLocalRandom.current().nextLong(0, employees), 50);
+    }
+
+    @Benchmark
+    public Employee saveEmployee() {
+        return employeeService.saveEmployee(EmployeeFixtures.employee(newEmployees.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Optional<Employee> updateEmployee() {
+        long id = ThreadLocalRandom.current().nextLong(1, employees + 1);
+        return employeeService.updateEmployee(id, EmployeeFixtures.employee(id));
+    }
+}
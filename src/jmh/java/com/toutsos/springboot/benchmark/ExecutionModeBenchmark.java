@@ -0,0 +1,91 @@
+package com.toutsos.springboot.benchmark;
+
+import com.toutsos.springboot.execution.DbCallLimiter;
+import com.toutsos.springboot.execution.VirtualThreadConfiguration;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import com.toutsos.springboot.service.EmployeeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of concurrent requests that each block on the database, handled by a Tomcat sized platform
+ * pool or by one virtual thread per request, with the same {@link DbCallLimiter} in front of the repository.
+ * The score is the time to complete the whole burst. The virtual mode needs a Java 21 runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    // server.tomcat.threads.max default
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String mode;
+
+    @Param({"200", "2000"})
+    public int requests;
+
+    @Param({"10", "200"})
+    public int maxInFlightDbCalls;
+
+    @Param({"2"})
+    public int dbLatencyMillis;
+
+    private ExecutorService executor;
+
+    private EmployeeService employeeService;
+
+    @Setup
+    public void setup() {
+        executor = "virtual".equals(mode)
+                ? VirtualThreadConfiguration.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(
+                EmployeeFixtures.repositoryWith(1000, Duration.ofMillis(dbLatencyMillis)));
+        proxyFactory.addAspect(new DbCallLimiter(maxInFlightDbCalls, Duration.ofMinutes(1)));
+        EmployeeRepository limitedRepository = proxyFactory.getProxy();
+        employeeService = EmployeeFixtures.service(limitedRepository, false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void requestBurst() {
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[requests];
+        for (int i = 0; i < requests; i++) {
+            calls[i] = CompletableFuture.supplyAsync(this::getRandomEmployee, executor);
+        }
+        CompletableFuture.allOf(calls).join();
+    }
+
+    private Optional<Employee> getRandomEmployee() {
+        return employeeService.getEmployeeById(ThreadLocalRandom.current().nextLong(1, 1001));
+    }
+}
@@ -0,0 +1,188 @@
+package com.toutsos.springboot.benchmark;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Map backed stand-in for {@link EmployeeRepository} so the service and controller benchmarks
+ * measure our code instead of MySQL. Only the methods the service calls are implemented,
+ * anything else fails loudly. An optional latency parks the caller on every repository call,
+ * standing in for the JDBC round trip.
+ */
+public class InMemoryEmployeeRepository implements InvocationHandler {
+
+    private final ConcurrentSkipListMap<Long, Employee> employeesById = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Employee> employeesByEmail = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final long latencyNanos;
+
+    private InMemoryEmployeeRepository(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    public static EmployeeRepository create() {
+        return create(Duration.ZERO);
+    }
+
+    public static EmployeeRepository create(Duration latency) {
+        return (EmployeeRepository) Proxy.newProxyInstance(EmployeeRepository.class.getClassLoader(),
+                new Class<?>[]{EmployeeRepository.class}, new InMemoryEmployeeRepository(latency));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (latencyNanos > 0 && method.getDeclaringClass() != Object.class) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+        switch (method.getName()) {
+            case "save":
+            case "saveAndFlush":
+                return save((Employee) args[0]);
+            case "insertAll":
+                ((List<Employee>) args[0]).forEach(this::save);
+                return null;
+            case "updateById":
+                return updateById((Long) args[0], (String) args[1], (String) args[2], (String) args[3], (Long) args[4]);
+            case "findVersionById":
+                return Optional.ofNullable(employeesById.get((Long) args[0])).map(Employee::getVersion);
+            case "findById":
+                return Optional.ofNullable(employeesById.get((Long) args[0]));
+            case "findDetachedById":
+                return Optional.ofNullable(employeesById.get((Long) args[0])).map(InMemoryEmployeeRepository::detached);
+            case "existsById":
+                return employeesById.containsKey((Long) args[0]);
+            case "findByEmail":
+                return Optional.ofNullable(employeesByEmail.get(key((String) args[0])));
+            case "findExistingEmails":
+                return findExistingEmails((Collection<String>) args[0]);
+            case "findAll":
+                return new ArrayList<>(employeesById.values());
+            case "findAllDetached":
+                return findAllDetached();
+            case "findDetachedByIdGreaterThan":
+                return findAfter((Long) args[0], (Pageable) args[1]);
+            case "streamAll":
+                employeesById.values().forEach((Consumer<Employee>) args[1]);
+                return null;
+            case "deleteRowById":
+                return delete((Long) args[0]) ? 1 : 0;
+            case "deleteRowsByIdIn":
+                return deleteAll((Collection<Long>) args[0]);
+            case "count":
+                return (long) employeesById.size();
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "InMemoryEmployeeRepository";
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Employee save(Employee employee) {
+        if (employee.getId() == null) {
+            employee.setId(ids.incrementAndGet());
+        }
+        Employee previous = employeesById.put(employee.getId(), employee);
+        if (previous != null) {
+            employeesByEmail.remove(key(previous.getEmail()));
+        }
+        employeesByEmail.put(key(employee.getEmail()), employee);
+        return employee;
+    }
+
+    private int updateById(long id, String firstName, String lastName, String email, Long version) {
+        Employee current = employeesById.get(id);
+        long currentVersion = current == null || current.getVersion() == null ? 0 : current.getVersion();
+        if (current == null || (version != null && version != currentVersion)) {
+            return 0;
+        }
+        save(current.toBuilder()
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(email)
+                .version(currentVersion + 1)
+                .build());
+        return 1;
+    }
+
+    private boolean delete(long id) {
+        Employee previous = employeesById.remove(id);
+        if (previous != null) {
+            employeesByEmail.remove(key(previous.getEmail()));
+        }
+        return previous != null;
+    }
+
+    private int deleteAll(Collection<Long> ids) {
+        int deleted = 0;
+        for (Long id : ids) {
+            if (delete(id)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private List<String> findExistingEmails(Collection<String> emails) {
+        List<String> existing = new ArrayList<>();
+        for (String email : emails) {
+            Employee employee = employeesByEmail.get(key(email));
+            if (employee != null) {
+                existing.add(employee.getEmail());
+            }
+        }
+        return existing;
+    }
+
+    private List<Employee> findAfter(long id, Pageable pageable) {
+        List<Employee> page = new ArrayList<>(pageable.getPageSize());
+        for (Employee employee : employeesById.tailMap(id, false).values()) {
+            if (page.size() == pageable.getPageSize()) {
+                break;
+            }
+            page.add(detached(employee));
+        }
+        return page;
+    }
+
+    private List<Employee> findAllDetached() {
+        List<Employee> employees = new ArrayList<>(employeesById.size());
+        for (Employee employee : employeesById.values()) {
+            employees.add(detached(employee));
+        }
+        return employees;
+    }
+
+    // the projection queries build a new object per row
+    private static Employee detached(Employee employee) {
+        return employee.toBuilder().build();
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,299 @@
+package com.toutsos.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.IterationType;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JVM build against native build of the whole application, each started as its own process
+ * against a fresh MySQL container. startup is the time until /actuator/health answers, one start per
+ * iteration, getEmployeeById the steady state GET /api/employees/{id} throughput. Both report the
+ * resident set size of the application in megabytes as the rssMegabytes counter, after startup and
+ * after every throughput iteration (negative outside Linux).
+ * Build both first: mvn package, then mvn -Pnative package (needs GraalVM), or point
+ * -Djmh.jvm.jar and -Djmh.native.executable at existing builds.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.includes=NativeImageBenchmark
+ */
+@Fork(1)
+public class NativeImageBenchmark {
+
+    private static final int EMPLOYEES = 1000;
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    // the database outlives the starts, every iteration starts the application again
+    @State(Scope.Benchmark)
+    public static class Startup {
+
+        @Param({"jvm", "native"})
+        public String build;
+
+        private MySQLContainer<?> mySQLContainer;
+
+        private Application application;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            mySQLContainer = startMySQL();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stopApplication() {
+            if (application != null) {
+                application.stop();
+                application = null;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            mySQLContainer.stop();
+        }
+    }
+
+    // one application for the whole throughput run, with EMPLOYEES rows
+    @State(Scope.Benchmark)
+    public static class Running {
+
+        @Param({"jvm", "native"})
+        public String build;
+
+        private MySQLContainer<?> mySQLContainer;
+
+        private Application application;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException, InterruptedException {
+            mySQLContainer = startMySQL();
+            application = Application.start(build, mySQLContainer);
+            application.createEmployees();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            application.stop();
+            mySQLContainer.stop();
+        }
+    }
+
+    // resident set size after startup
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory {
+
+        public double rssMegabytes;
+    }
+
+    // resident set size after every throughput iteration
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MemoryAfterRun {
+
+        public double rssMegabytes;
+
+        @TearDown(Level.Iteration)
+        public void tearDown(Running running, BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                             ThreadParams threadParams) throws IOException {
+            rssMegabytes = rssShare(running.application, benchmarkParams, iterationParams, threadParams);
+        }
+    }
+
+    // the first start also migrates the schema, so it is the warmup
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    @Threads(1)
+    public void startup(Startup startup, Memory memory, BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                        ThreadParams threadParams) throws IOException, InterruptedException {
+        startup.application = Application.start(startup.build, startup.mySQLContainer);
+        memory.rssMegabytes = rssShare(startup.application, benchmarkParams, iterationParams, threadParams);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 10)
+    @Measurement(iterations = 5, time = 10)
+    @Threads(16)
+    public int getEmployeeById(Running running, MemoryAfterRun memory) throws IOException, InterruptedException {
+        long id = ThreadLocalRandom.current().nextLong(1, EMPLOYEES + 1);
+        Application application = running.application;
+        HttpResponse<byte[]> response = application.httpClient.send(
+                HttpRequest.newBuilder(URI.create(application.baseUrl + "/api/employees/" + id)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /api/employees/" + id + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    //JMH adds an events counter up over the threads and the measured iterations, so the first thread reports
+    // its share in every measured iteration and the counter comes out as the mean resident set size
+    private static double rssShare(Application application, BenchmarkParams benchmarkParams, IterationParams iterationParams,
+                                   ThreadParams threadParams) throws IOException {
+        if (iterationParams.getType() != IterationType.MEASUREMENT || threadParams.getThreadIndex() != 0) {
+            return 0;
+        }
+        return application.rssMegabytes() / (double) benchmarkParams.getMeasurement().getCount();
+    }
+
+    private static MySQLContainer<?> startMySQL() {
+        MySQLContainer<?> mySQLContainer = new MySQLContainer<>("mysql:latest").withDatabaseName("ems");
+        mySQLContainer.start();
+        return mySQLContainer;
+    }
+
+    //One build of the application running as its own process
+    static final class Application {
+
+        private final String build;
+
+        private final Process process;
+
+        private final HttpClient httpClient;
+
+        private final String baseUrl;
+
+        private Application(String build, Process process, HttpClient httpClient, String baseUrl) {
+            this.build = build;
+            this.process = process;
+            this.httpClient = httpClient;
+            this.baseUrl = baseUrl;
+        }
+
+        //Returns once /actuator/health answers
+        static Application start(String build, MySQLContainer<?> mySQLContainer) throws IOException, InterruptedException {
+            HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+            int port = freePort();
+
+            List<String> command = new ArrayList<>();
+            if ("native".equals(build)) {
+                command.add(System.getProperty("jmh.native.executable", "target/employees"));
+            } else {
+                command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+                command.add("-jar");
+                command.add(System.getProperty("jmh.jvm.jar", "target/spring-boot-testing-0.0.1-SNAPSHOT.jar"));
+            }
+            command.add("--server.port=" + port);
+            command.add("--spring.datasource.url=" + mySQLContainer.getJdbcUrl());
+            command.add("--spring.datasource.username=" + mySQLContainer.getUsername());
+            command.add("--spring.datasource.password=" + mySQLContainer.getPassword());
+            // every benchmark thread is the same client, the per client rate limit would cap throughput
+            command.add("--employees.rate-limit.enabled=false");
+
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(new File("target/native-image-benchmark-" + build + ".log"))
+                    .start();
+            Application application = new Application(build, process, httpClient, "http://localhost:" + port);
+            application.awaitHealthy();
+            return application;
+        }
+
+        void stop() {
+            process.destroy();
+            try {
+                process.waitFor(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void awaitHealthy() throws InterruptedException {
+            HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build();
+            long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(build + " build exited with " + process.exitValue()
+                            + ", see target/native-image-benchmark-" + build + ".log");
+                }
+                try {
+                    if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException(build + " build did not start within " + STARTUP_TIMEOUT);
+        }
+
+        // fresh database, so the ids are 1..EMPLOYEES
+        void createEmployees() throws IOException, InterruptedException {
+            StringBuilder body = new StringBuilder("[");
+            for (int n = 1; n <= EMPLOYEES; n++) {
+                if (n > 1) {
+                    body.append(',');
+                }
+                body.append("{\"firstName\":\"First").append(n)
+                        .append("\",\"lastName\":\"Last").append(n)
+                        .append("\",\"email\":\"employee").append(n).append("@gmail.com\"}");
+            }
+            body.append(']');
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/employees/batch"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300) {
+                throw new IllegalStateException("creating employees failed: " + response.statusCode() + " " + response.body());
+            }
+        }
+
+        // Linux only, -1 elsewhere
+        long rssMegabytes() throws IOException {
+            Path status = Paths.get("/proc", Long.toString(process.pid()), "status");
+            if (!Files.exists(status)) {
+                return -1;
+            }
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+                }
+            }
+            return -1;
+        }
+
+        private static int freePort() throws IOException {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                return socket.getLocalPort();
+            }
+        }
+    }
+}
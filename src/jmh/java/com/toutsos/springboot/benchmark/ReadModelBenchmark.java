@@ -0,0 +1,114 @@
+package com.toutsos.springboot.benchmark;
+
+import com.toutsos.springboot.SpringBootTestingApplication;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per request of the read endpoints' queries with three read models against a real MySQL:
+ * managed entities in a read-write transaction (snapshots and a dirty check at commit), managed
+ * entities in a read-only transaction, and the detached constructor expression projections the
+ * service uses. Allocation per request is the gc.alloc.rate.norm line of the gc profiler,
+ * which the benchmark profile enables by default.
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ReadModelBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadModelBenchmark {
+
+    private static final int EMPLOYEES = 10_000;
+
+    // GET /api/employees?limit=50
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"managed", "read-only", "projection"})
+    public String readModel;
+
+    private MySQLContainer<?> mySQLContainer;
+
+    private ConfigurableApplicationContext context;
+
+    private EmployeeRepository employeeRepository;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setup() {
+        mySQLContainer = new MySQLContainer<>("mysql:latest").withDatabaseName("ems");
+        mySQLContainer.start();
+        context = new SpringApplicationBuilder(SpringBootTestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + mySQLContainer.getJdbcUrl(),
+                        "--spring.datasource.username=" + mySQLContainer.getUsername(),
+                        "--spring.datasource.password=" + mySQLContainer.getPassword());
+        employeeRepository = context.getBean(EmployeeRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(!"managed".equals(readModel));
+
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (long n = 1; n <= EMPLOYEES; n++) {
+            employees.add(EmployeeFixtures.employee(n));
+        }
+        employeeRepository.insertAll(employees);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        mySQLContainer.stop();
+    }
+
+    @Benchmark
+    public Optional<Employee> lookupById() {
+        long id = ThreadLocalRandom.current().nextLong(1, EMPLOYEES + 1);
+        return transactionTemplate.execute(status -> "projection".equals(readModel)
+                ? employeeRepository.findDetachedById(id)
+                : Optional.ofNullable(entityManager.find(Employee.class, id)));
+    }
+
+    @Benchmark
+    public List<Employee> listPage() {
+        long afterId = ThreadLocalRandom.current().nextLong(0, EMPLOYEES - PAGE_SIZE);
+        return transactionTemplate.execute(status -> "projection".equals(readModel)
+                ? employeeRepository.findDetachedByIdGreaterThan(afterId, PageRequest.of(0, PAGE_SIZE))
+                : entityManager.createQuery("select e from Employee e where e.id > :id order by e.id", Employee.class)
+                        .setParameter("id", afterId)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList());
+    }
+}
@@ -2,12 +2,22 @@ package com.toutsos.springboot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class  SpringBootTestingApplication {
 
+	// startup steps kept for /actuator/startup, a full context refresh records a few thousand
+	static final int STARTUP_STEPS_CAPACITY = 8192;
+
 	public static void main(String[] args) {
-		SpringApplication.run(SpringBootTestingApplication.class, args);
+		application().run(args);
+	}
+
+	public static SpringApplication application() {
+		SpringApplication application = new SpringApplication(SpringBootTestingApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+		return application;
 	}
 
 }
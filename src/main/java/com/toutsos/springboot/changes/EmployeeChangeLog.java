@@ -0,0 +1,185 @@
+package com.toutsos.springboot.changes;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeChange;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The employee_changes outbox. Writes record the changed employees inside their own transaction, so a change
+ * becomes visible exactly when the write commits and disappears with it on a rollback.
+ * Sequences come from the employee_change_sequence row, which stays locked until the recording transaction
+ * ends: a later writer waits for the commit before it gets the next sequence, so once a sequence is visible
+ * every lower one is too, however long the transactions run. Writes record as their last statement to keep
+ * that wait short. Every recorded employee is stamped with the sequence of its change for {@link EmployeeSync}.
+ * {@link EmployeeChangePublisher} reads the committed changes back in sequence order.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.changes.enabled", havingValue = "true", matchIfMissing = true)
+public class EmployeeChangeLog {
+
+    // locks the rows, so a concurrent write of the same employees waits until this transaction has recorded them
+    private static final String SELECT_EMPLOYEES_SQL =
+            "select id, first_name, last_name, email, version from employees where id in (:ids) order by id for update";
+
+    private static final String NEXT_SEQUENCE_SQL =
+            "select value from employee_change_sequence where id = 1 for update";
+
+    private static final String ALLOCATE_SQL =
+            "update employee_change_sequence set value = value + ? where id = 1";
+
+    private static final String INSERT_SQL =
+            "insert into employee_changes (sequence, change_type, employee_id, first_name, last_name, email, version) " +
+            "values (?, ?, ?, ?, ?, ?, ?)";
+
+    // the sync watermark of the employee, see EmployeeSync. Deleted employees are synced from their DELETED change
+    private static final String STAMP_SQL = "update employees set change_sequence = ? where id = ?";
+
+    // ids locked and recorded per round trip, a bulk import records thousands at once
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String SELECT_CHANGES_SQL =
+            "select sequence, change_type, changed_at, employee_id, first_name, last_name, email, version " +
+            "from employee_changes where sequence > ? and sequence <= ? order by sequence limit ?";
+
+    private static final RowMapper<Employee> EMPLOYEE_MAPPER = (resultSet, rowNum) -> new Employee(
+            resultSet.getLong("id"), resultSet.getString("first_name"), resultSet.getString("last_name"),
+            resultSet.getString("email"), resultSet.getLong("version"), null);
+
+    private static final RowMapper<EmployeeChange> CHANGE_MAPPER = (resultSet, rowNum) -> new EmployeeChange(
+            resultSet.getLong("sequence"),
+            EmployeeChange.Type.valueOf(resultSet.getString("change_type")),
+            resultSet.getTimestamp("changed_at").toInstant(),
+            new Employee(resultSet.getLong("employee_id"), resultSet.getString("first_name"), resultSet.getString("last_name"),
+                    resultSet.getString("email"), resultSet.getLong("version"), null));
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public EmployeeChangeLog(NamedParameterJdbcTemplate namedParameterJdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.jdbcTemplate = namedParameterJdbcTemplate.getJdbcTemplate();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    //Runs a write and the changes it records in one transaction, the caller's one if it already has one
+    public <T> T inTransaction(Supplier<T> write) {
+        return transactionTemplate.execute(status -> write.get());
+    }
+
+    //Records the given employees as they are now, ids without a row are skipped. Called after creates and updates
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int record(EmployeeChange.Type type, Collection<Long> ids) {
+        return append(type, lock(ids));
+    }
+
+    //Reads and locks the employees about to be deleted, without taking the sequence lock yet. The delete runs
+    // next and recordDeleted last, so the sequence lock is still only held from the last statement to the commit
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Employee> lock(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Employee> employees = new ArrayList<>(distinctIds.size());
+        for (int from = 0; from < distinctIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + CHUNK_SIZE, distinctIds.size()));
+            employees.addAll(namedParameterJdbcTemplate.query(SELECT_EMPLOYEES_SQL, Map.of("ids", chunk), EMPLOYEE_MAPPER));
+        }
+        return employees;
+    }
+
+    //Records the last state of employees read by lock and deleted since
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int recordDeleted(List<Employee> deleted) {
+        return append(EmployeeChange.Type.DELETED, deleted);
+    }
+
+    private int append(EmployeeChange.Type type, List<Employee> employees) {
+        for (int from = 0; from < employees.size(); from += CHUNK_SIZE) {
+            appendChunk(type, employees.subList(from, Math.min(from + CHUNK_SIZE, employees.size())));
+        }
+        return employees.size();
+    }
+
+    private void appendChunk(EmployeeChange.Type type, List<Employee> employees) {
+        Long last = jdbcTemplate.queryForObject(NEXT_SEQUENCE_SQL, Long.class);
+        jdbcTemplate.update(ALLOCATE_SQL, employees.size());
+        long first = last + 1;
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Employee employee = employees.get(i);
+                statement.setLong(1, first + i);
+                statement.setString(2, type.name());
+                statement.setLong(3, employee.getId());
+                statement.setString(4, employee.getFirstName());
+                statement.setString(5, employee.getLastName());
+                statement.setString(6, employee.getEmail());
+                statement.setLong(7, employee.getVersion());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return employees.size();
+            }
+        });
+        if (type != EmployeeChange.Type.DELETED) {
+            jdbcTemplate.batchUpdate(STAMP_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement statement, int i) throws SQLException {
+                    statement.setLong(1, first + i);
+                    statement.setLong(2, employees.get(i).getId());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return employees.size();
+                }
+            });
+        }
+    }
+
+    //Committed changes after the given sequence, up to and including upTo
+    public List<EmployeeChange> readAfter(long sequence, long upTo, int limit) {
+        return jdbcTemplate.query(SELECT_CHANGES_SQL, CHANGE_MAPPER, sequence, upTo, limit);
+    }
+
+    //Oldest change still kept, or the next sequence to be handed out once every change was purged
+    public long firstSequence() {
+        return jdbcTemplate.queryForObject("select coalesce((select min(sequence) from employee_changes), " +
+                "(select value + 1 from employee_change_sequence where id = 1))", Long.class);
+    }
+
+    //Newest committed change. Sequences become visible in commit order, so every change up to it is committed too
+    public long lastSequence() {
+        Long sequence = jdbcTemplate.queryForObject("select max(sequence) from employee_changes", Long.class);
+        return sequence == null ? 0 : sequence;
+    }
+
+    //Deletes at most limit changes older than the retention and not after the given sequence
+    public int purge(Duration retention, long upTo, int limit) {
+        return jdbcTemplate.update("delete from employee_changes where changed_at < now(3) - interval ? second " +
+                "and sequence <= ? order by sequence limit ?", retention.toSeconds(), upTo, limit);
+    }
+}
@@ -0,0 +1,278 @@
+package com.toutsos.springboot.changes;
+
+import com.toutsos.springboot.exception.GoneException;
+import com.toutsos.springboot.exception.ServiceUnavailableException;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.model.EmployeeChangePage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publishes the employee_changes outbox in sequence order. {@link EmployeeChangeLog} hands out sequences
+ * in commit order without gaps, so the newest visible sequence is the published watermark: nothing below
+ * it can still commit. Readers of GET /api/employees/changes and the server-sent event streams never see
+ * past the watermark. Every stream is written by its own sender task, so a slow client only holds up itself.
+ * Changes older than the retention are purged.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.changes.enabled", havingValue = "true", matchIfMissing = true)
+public class EmployeeChangePublisher implements MeterBinder, DisposableBean {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeChangePublisher.class);
+
+    private final EmployeeChangeLog changeLog;
+
+    private final int batchSize;
+
+    private final Duration retention;
+
+    private final long streamTimeoutMillis;
+
+    private final int maxSubscribers;
+
+    private volatile long published;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final LongAdder publishedChanges = new LongAdder();
+
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-changes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // at most one task per subscriber, so there is a thread for every busy stream and none for idle ones
+    private final ExecutorService senders;
+
+    @Autowired
+    public EmployeeChangePublisher(EmployeeChangeLog changeLog,
+                                   @Value("${employees.changes.publish-interval:200ms}") Duration publishInterval,
+                                   @Value("${employees.changes.batch-size:500}") int batchSize,
+                                   @Value("${employees.changes.retention:7d}") Duration retention,
+                                   @Value("${employees.changes.stream-timeout:30m}") Duration streamTimeout,
+                                   @Value("${employees.changes.max-subscribers:100}") int maxSubscribers) {
+        this(changeLog, batchSize, retention, streamTimeout, maxSubscribers);
+        publisher.scheduleWithFixedDelay(this::publishQuietly, publishInterval.toMillis(), publishInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        publisher.scheduleWithFixedDelay(this::purgeQuietly, 1, 60, TimeUnit.MINUTES);
+    }
+
+    EmployeeChangePublisher(EmployeeChangeLog changeLog, int batchSize, Duration retention, Duration streamTimeout,
+                            int maxSubscribers) {
+        this.changeLog = changeLog;
+        this.batchSize = Math.max(1, batchSize);
+        this.retention = retention;
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+        this.maxSubscribers = Math.max(1, maxSubscribers);
+        AtomicInteger senderThreads = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(0, this.maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "employee-changes-sender-" + senderThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.published = changeLog.lastSequence();
+    }
+
+    //Moves the watermark over the changes committed since the last run and wakes up the streams behind it
+    public void publish() {
+        advance();
+        deliver();
+    }
+
+    synchronized void advance() {
+        long watermark = changeLog.lastSequence();
+        if (watermark > published) {
+            publishedChanges.add(watermark - published);
+            published = watermark;
+        }
+    }
+
+    //Published changes after since. A since older than the retained changes is answered with a 410,
+    // the consumer has to start over from a full read
+    public EmployeeChangePage read(long since, int limit) {
+        checkRetained(since);
+        List<EmployeeChange> changes = changeLog.readAfter(since, published,
+                Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return new EmployeeChangePage(changes, changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence());
+    }
+
+    //Server-sent events of every change after since, the event id is the sequence to resume from.
+    // A reconnect with a Last-Event-ID older than the retained changes gets the same 410 as read
+    public SseEmitter subscribe(Long since) {
+        if (since != null) {
+            checkRetained(since);
+        }
+        Subscriber subscriber;
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new ServiceUnavailableException("Too many open change streams, retry later");
+            }
+            subscriber = new Subscriber(new SseEmitter(streamTimeoutMillis), since == null ? published : since);
+            subscribers.add(subscriber);
+        }
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+        // catch up now instead of with the next publish
+        schedule(subscriber);
+        return subscriber.emitter;
+    }
+
+    private void checkRetained(long since) {
+        if (since < changeLog.firstSequence() - 1) {
+            throw new GoneException("Changes after " + since + " are no longer kept, start over from a full read");
+        }
+    }
+
+    private void deliver() {
+        for (Subscriber subscriber : subscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.cursor < published && subscriber.sending.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> send(subscriber));
+            } catch (RejectedExecutionException e) {
+                // a closed stream's task still finishing, or shutting down. The next publish tries again
+                subscriber.sending.set(false);
+            }
+        }
+    }
+
+    // the only writer of this subscriber while sending is set, checks again after clearing it so a
+    // publish that found it busy is not lost
+    private void send(Subscriber subscriber) {
+        do {
+            try {
+                catchUp(subscriber);
+            } catch (IOException | IllegalStateException e) {
+                // the client went away, it resumes with Last-Event-ID
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Sending employee changes failed, retrying with the next run", e);
+                subscriber.sending.set(false);
+                return;
+            }
+            subscriber.sending.set(false);
+        } while (subscriber.cursor < published && subscribers.contains(subscriber)
+                && subscriber.sending.compareAndSet(false, true));
+    }
+
+    private void catchUp(Subscriber subscriber) throws IOException {
+        long watermark = published;
+        while (subscriber.cursor < watermark) {
+            List<EmployeeChange> changes = changeLog.readAfter(subscriber.cursor, watermark, batchSize);
+            if (changes.isEmpty()) {
+                subscriber.cursor = watermark;
+                return;
+            }
+            for (EmployeeChange change : changes) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.getSequence()))
+                        .name("employee-change")
+                        .data(change));
+                subscriber.cursor = change.getSequence();
+            }
+        }
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.warn("Publishing employee changes failed, retrying with the next run", e);
+        }
+    }
+
+    // only published changes are purged, chunked to keep every delete short
+    private void purgeQuietly() {
+        try {
+            while (changeLog.purge(retention, published, batchSize) == batchSize) {
+                // more to delete
+            }
+        } catch (RuntimeException e) {
+            log.warn("Purging old employee changes failed, retrying with the next run", e);
+        }
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public int getSubscribers() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("employee.changes.published-sequence", this, EmployeeChangePublisher::getPublished)
+                .description("Sequence up to which employee changes are published")
+                .register(registry);
+        Gauge.builder("employee.changes.subscribers", this, EmployeeChangePublisher::getSubscribers)
+                .description("Open server-sent event streams of employee changes")
+                .register(registry);
+        FunctionCounter.builder("employee.changes.published", publishedChanges, LongAdder::sum)
+                .description("Employee changes published")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        publisher.shutdown();
+        publisher.awaitTermination(10, TimeUnit.SECONDS);
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        // only written by the task that set sending
+        private volatile long cursor;
+
+        private Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
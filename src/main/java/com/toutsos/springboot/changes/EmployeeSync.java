@@ -0,0 +1,84 @@
+package com.toutsos.springboot.changes;
+
+import com.toutsos.springboot.exception.GoneException;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeSyncEntry;
+import com.toutsos.springboot.model.EmployeeSyncPage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Incremental sync for mirrors of the employees table: the employees inserted or updated after a
+ * (sequence, id) watermark and tombstones for the ones deleted after it, in watermark order, so a sync
+ * reads as many rows as changed instead of the whole table. The sequence is the one {@link EmployeeChangeLog}
+ * hands out, employees carry the sequence of their last change in change_sequence and tombstones are the
+ * DELETED rows of the employee_changes outbox. Sequences become visible in commit order, so a watermark is
+ * never passed by a transaction that commits later, however long it runs. Tombstones are kept for
+ * employees.changes.retention, a mirror that has not synced for longer gets a 410 and starts over.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.changes.enabled", havingValue = "true", matchIfMissing = true)
+public class EmployeeSync {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    // both branches seek on their (sequence, id) index and stop after limit rows, the union merges them.
+    // Employees that were not changed since the change log was introduced have sequence 0 and are ordered by id
+    private static final String SELECT_SQL =
+            "(select id, first_name, last_name, email, version, updated_at as modified_at, false as deleted, " +
+            "change_sequence as sequence from employees " +
+            "where change_sequence > ? or (change_sequence = ? and id > ?) order by change_sequence, id limit ?) " +
+            "union all " +
+            "(select employee_id, null, null, null, null, changed_at, true, sequence from employee_changes " +
+            "where change_type = 'DELETED' and (sequence > ? or (sequence = ? and employee_id > ?)) " +
+            "order by sequence, employee_id limit ?) " +
+            "order by sequence, id limit ?";
+
+    private static final RowMapper<EmployeeSyncEntry> ENTRY_MAPPER = (resultSet, rowNum) -> {
+        long id = resultSet.getLong("id");
+        long sequence = resultSet.getLong("sequence");
+        Instant modifiedAt = resultSet.getTimestamp("modified_at").toInstant();
+        if (resultSet.getBoolean("deleted")) {
+            return new EmployeeSyncEntry(id, sequence, modifiedAt, true, null);
+        }
+        return new EmployeeSyncEntry(id, sequence, modifiedAt, false, new Employee(id, resultSet.getString("first_name"),
+                resultSet.getString("last_name"), resultSet.getString("email"), resultSet.getLong("version"), modifiedAt));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EmployeeChangeLog changeLog;
+
+    public EmployeeSync(JdbcTemplate jdbcTemplate, EmployeeChangeLog changeLog) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeLog = changeLog;
+    }
+
+    //Changes after the watermark. Without a watermark the first page starts at the oldest employee,
+    // which makes the initial copy the same paginated read. Buffered write-behind updates show up once flushed.
+    // Not a read-only transaction on purpose: a lagging replica would hide rows behind a watermark the mirror
+    // has already passed, so this always reads from the primary
+    public EmployeeSyncPage read(Long modifiedSince, long after, int limit) {
+        long since = modifiedSince == null ? 0 : modifiedSince;
+        if (since > 0 && since < changeLog.firstSequence() - 1) {
+            throw new GoneException("Deletes after " + since + " are no longer kept, start over from a full copy");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<EmployeeSyncEntry> entries = jdbcTemplate.query(SELECT_SQL, ENTRY_MAPPER,
+                since, since, after, pageSize,
+                since, since, after, pageSize,
+                pageSize);
+        if (entries.isEmpty()) {
+            return new EmployeeSyncPage(entries, since, after);
+        }
+        EmployeeSyncEntry last = entries.get(entries.size() - 1);
+        return new EmployeeSyncPage(entries, last.getSequence(), last.getId());
+    }
+}
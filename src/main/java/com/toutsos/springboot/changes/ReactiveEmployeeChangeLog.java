@@ -0,0 +1,125 @@
+package com.toutsos.springboot.changes;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeChange;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * R2DBC counterpart of {@link EmployeeChangeLog} for the reactive profile: the same employee_changes outbox,
+ * sequence row and change_sequence stamps, so the servlet instances on the same database publish and sync
+ * the writes of reactive instances like their own. The reactive profile records changes only, the change
+ * feed and {@link EmployeeSync} are served by the servlet stack.
+ */
+@Component
+@Profile("reactive")
+@ConditionalOnProperty(name = "employees.changes.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveEmployeeChangeLog {
+
+    // locks the rows, so a concurrent write of the same employees waits until this transaction has recorded them
+    private static final String SELECT_EMPLOYEES_SQL =
+            "select id, first_name, last_name, email, version from employees where id in (:ids) order by id for update";
+
+    private static final String NEXT_SEQUENCE_SQL =
+            "select value from employee_change_sequence where id = 1 for update";
+
+    private static final String ALLOCATE_SQL =
+            "update employee_change_sequence set value = value + :count where id = 1";
+
+    private static final String INSERT_SQL =
+            "insert into employee_changes (sequence, change_type, employee_id, first_name, last_name, email, version) " +
+            "values (:sequence, :changeType, :employeeId, :firstName, :lastName, :email, :version)";
+
+    private static final String STAMP_SQL = "update employees set change_sequence = :sequence where id = :id";
+
+    private final DatabaseClient databaseClient;
+
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveEmployeeChangeLog(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    //Runs a write and the changes it records in one transaction, the caller's one if it already has one
+    public <T> Mono<T> inTransaction(Mono<T> write) {
+        return transactionalOperator.transactional(write);
+    }
+
+    //Records the given employees as they are now, ids without a row are skipped. Called after creates and updates
+    public Mono<Integer> record(EmployeeChange.Type type, Collection<Long> ids) {
+        return lock(ids).flatMap(employees -> append(type, employees));
+    }
+
+    //Reads and locks the employees about to be deleted, without taking the sequence lock yet
+    public Mono<List<Employee>> lock(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return databaseClient.sql(SELECT_EMPLOYEES_SQL)
+                .bind("ids", new ArrayList<>(new LinkedHashSet<>(ids)))
+                .map((row, metadata) -> employee(row))
+                .all()
+                .collectList();
+    }
+
+    //Records the last state of employees read by lock and deleted since
+    public Mono<Integer> recordDeleted(List<Employee> deleted) {
+        return append(EmployeeChange.Type.DELETED, deleted);
+    }
+
+    private Mono<Integer> append(EmployeeChange.Type type, List<Employee> employees) {
+        if (employees.isEmpty()) {
+            return Mono.just(0);
+        }
+        return databaseClient.sql(NEXT_SEQUENCE_SQL)
+                .map((row, metadata) -> row.get("value", Long.class))
+                .one()
+                .flatMap(last -> databaseClient.sql(ALLOCATE_SQL)
+                        .bind("count", employees.size())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenMany(Flux.range(0, employees.size())
+                                .concatMap(i -> insert(type, last + 1 + i, employees.get(i))))
+                        .then(Mono.just(employees.size())));
+    }
+
+    private Mono<Integer> insert(EmployeeChange.Type type, long sequence, Employee employee) {
+        Mono<Integer> inserted = databaseClient.sql(INSERT_SQL)
+                .bind("sequence", sequence)
+                .bind("changeType", type.name())
+                .bind("employeeId", employee.getId())
+                .bind("firstName", employee.getFirstName())
+                .bind("lastName", employee.getLastName())
+                .bind("email", employee.getEmail())
+                .bind("version", employee.getVersion())
+                .fetch()
+                .rowsUpdated();
+        // the sync watermark of the employee, see EmployeeSync. Deleted employees are synced from their DELETED change
+        if (type == EmployeeChange.Type.DELETED) {
+            return inserted;
+        }
+        return inserted.then(databaseClient.sql(STAMP_SQL)
+                .bind("sequence", sequence)
+                .bind("id", employee.getId())
+                .fetch()
+                .rowsUpdated());
+    }
+
+    private static Employee employee(Row row) {
+        return new Employee(row.get("id", Long.class), row.get("first_name", String.class), row.get("last_name", String.class),
+                row.get("email", String.class), row.get("version", Long.class), null);
+    }
+}
@@ -0,0 +1,58 @@
+package com.toutsos.springboot.controller;
+
+import com.toutsos.springboot.changes.EmployeeChangePublisher;
+import com.toutsos.springboot.changes.EmployeeSync;
+import com.toutsos.springboot.model.EmployeeChangePage;
+import com.toutsos.springboot.model.EmployeeSyncPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+//Change data capture and incremental sync for downstream consumers, instead of polling GET /api/employees
+@RestController
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.changes.enabled", havingValue = "true", matchIfMissing = true)
+@RequestMapping("/api/employees")
+public class EmployeeChangeController {
+
+    private EmployeeChangePublisher changePublisher;
+
+    private EmployeeSync employeeSync;
+
+    @Autowired
+    public EmployeeChangeController(EmployeeChangePublisher changePublisher, EmployeeSync employeeSync) {
+        this.changePublisher = changePublisher;
+        this.employeeSync = employeeSync;
+    }
+
+    //Employees changed and deleted after the watermark, in commit order. Pass the "modifiedSince" and "after"
+    // values of the previous page back, an empty "modifiedSince" starts a full copy
+    @GetMapping(params = "modifiedSince")
+    public EmployeeSyncPage getModifiedEmployees(@RequestParam(value = "modifiedSince", required = false) Long modifiedSince,
+                                                 @RequestParam(value = "after", defaultValue = "0") long after,
+                                                 @RequestParam(value = "limit", defaultValue = "100") int limit){
+        return employeeSync.read(modifiedSince, after, limit);
+    }
+
+    //Changes in commit order after "since", pass the "next" value of the previous page as "since"
+    @GetMapping("changes")
+    public EmployeeChangePage getChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                         @RequestParam(value = "limit", defaultValue = "100") int limit){
+        return changePublisher.read(since, limit);
+    }
+
+    //Server-sent events from "since" or, after a reconnect, from the Last-Event-ID the browser sends.
+    // Without either only new changes are sent
+    @GetMapping(value = "changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "since", required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        return changePublisher.subscribe(since != null ? since : lastEventId);
+    }
+}
@@ -1,23 +1,46 @@
 package com.toutsos.springboot.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.exception.BadRequestException;
 import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeBulkDelete;
+import com.toutsos.springboot.model.EmployeeBulkDeleteResult;
+import com.toutsos.springboot.model.EmployeeJson;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.model.EmployeeSearchPage;
 import com.toutsos.springboot.service.EmployeeService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
+//servlet stack, ReactiveEmployeeController serves the same API under the reactive profile
+@Profile("!reactive")
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
     private EmployeeService employeeService;
 
+    private ObjectMapper objectMapper;
+
     @Autowired
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -26,38 +49,121 @@ public class EmployeeController {
         return employeeService.saveEmployee(employee);
     }
 
+    //Bulk create, answers with one result per submitted employee in submission order
+    @PostMapping(value = "batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<EmployeeBatchResult> createEmployees(@RequestBody List<Employee> employees){
+        return employeeService.saveEmployees(employees);
+    }
+
+    @PostMapping(value = "batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public List<EmployeeBatchResult> createEmployeesFromNdjson(InputStream body) throws IOException {
+        try (MappingIterator<Employee> employees = objectMapper.readerFor(Employee.class).readValues(body)) {
+            return employeeService.saveEmployees(employees.readAll());
+        }
+    }
+
     @GetMapping
     public List<Employee> getAllEmployee(){
         return employeeService.getAllEmployees();
     }
 
+    //Keyset pagination: pass the "next" value of the previous page as "after".
+    // With modifiedSince the request is an incremental sync, see EmployeeChangeController
+    @GetMapping(params = {"limit", "!modifiedSince"})
+    public EmployeePage getEmployeesPage(@RequestParam(value = "after", required = false) Long after,
+                                         @RequestParam("limit") int limit){
+        return employeeService.getEmployeesPage(after, limit);
+    }
+
+    //Writes every employee as one JSON array while the rows are read,
+    // so the whole table is never held in memory
+    @GetMapping("stream")
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees(){
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                employeeService.forEachEmployee(employee -> {
+                    try {
+                        generator.writeObject(employee);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    //Prefix and typo tolerant search over first name, last name and email, best matches first
+    @GetMapping("search")
+    public EmployeeSearchPage searchEmployees(@RequestParam("q") String query,
+                                              @RequestParam(value = "page", defaultValue = "0") int page,
+                                              @RequestParam(value = "size", defaultValue = "20") int size){
+        return employeeService.searchEmployees(query, page, size);
+    }
+
+    //Writes the cached JSON bytes as they are. With a matching If-None-Match the answer is a 304 without a body,
+    // Spring compares the ETag before anything is written
     @GetMapping("{id}")
-    public ResponseEntity<Employee> getEmployeeById(@PathVariable("id") long employeeId){
-        return employeeService.getEmployeeById(employeeId)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getEmployeeById(@PathVariable("id") long employeeId){
+        return employeeService.getEmployeeJson(employeeId)
+                .map(employeeJson -> ResponseEntity.ok()
+                        .eTag(employeeJson.getEtag())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(employeeJson.getBytes()))
                 .orElseGet(()->ResponseEntity.notFound().build());
     }
 
+    //Replaces the employee. With the "version" of a previous read the update is conditional and a stale
+    // version gets a 409, without one it is unconditional on purpose and the last write wins. The response
+    // carries the version stored by this update either way
     @PutMapping("{id}")
-    @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<Employee> updateEmployee(@PathVariable("id") long employeeId, @RequestBody Employee employee){
 
-        return employeeService.getEmployeeById(employeeId)
-                .map(savedEmployee -> {
-                    savedEmployee.setFirstName(employee.getFirstName());
-                    savedEmployee.setLastName(employee.getLastName());
-                    savedEmployee.setEmail(employee.getEmail());
+        return employeeService.updateEmployee(employeeId, employee)
+                .map(updateEmployee -> new ResponseEntity<>(updateEmployee,HttpStatus.OK))
+                .orElseGet(()->ResponseEntity.notFound().build());
+    }
 
-                    Employee updateEmployee = employeeService.updateEmployee(savedEmployee);
-                    return new ResponseEntity<>(updateEmployee,HttpStatus.OK);
-                })
+    //Partial update with a JSON Merge Patch body, fields that are not sent stay as they are
+    @PatchMapping(value = "{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Employee> patchEmployee(@PathVariable("id") long employeeId, @RequestBody Map<String, Object> patch){
+        return employeeService.patchEmployee(employeeId, patch)
+                .map(ResponseEntity::ok)
                 .orElseGet(()->ResponseEntity.notFound().build());
     }
 
+    //The version sent with the update no longer matches the stored one
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentUpdate(OptimisticLockingFailureException e){
+        return new ResponseEntity<String>("Employee was modified by another request",HttpStatus.CONFLICT);
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<String> deleteEmploye(@PathVariable("id") long employeeId){
-        employeeService.deleteEmployee(employeeId);
+        if (!employeeService.deleteEmployee(employeeId)){
+            return ResponseEntity.notFound().build();
+        }
         return new ResponseEntity<String>("Employee Deleted Successfully",HttpStatus.OK);
     }
 
+    //Bulk delete for offboarding runs: the listed ids or every employee of an email domain,
+    // deleted in chunks with one DELETE ... WHERE id IN (...) each
+    @DeleteMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public EmployeeBulkDeleteResult deleteEmployees(@RequestBody EmployeeBulkDelete bulkDelete){
+        if ((bulkDelete.getIds() == null) == (bulkDelete.getEmailDomain() == null)){
+            throw new BadRequestException("Send either ids or emailDomain");
+        }
+        if (bulkDelete.getIds() != null && bulkDelete.getIds().contains(null)){
+            throw new BadRequestException("ids must not contain null");
+        }
+        List<Long> ids = bulkDelete.getIds() != null
+                ? bulkDelete.getIds()
+                : employeeService.getEmployeeIdsByEmailDomain(bulkDelete.getEmailDomain());
+        return new EmployeeBulkDeleteResult(employeeService.deleteEmployees(ids));
+    }
+
 }
@@ -0,0 +1,99 @@
+package com.toutsos.springboot.controller;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.service.ReactiveEmployeeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+//The /api/employees contract of EmployeeController on WebFlux, active with the reactive profile
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/employees")
+public class ReactiveEmployeeController {
+
+    private ReactiveEmployeeService employeeService;
+
+    @Autowired
+    public ReactiveEmployeeController(ReactiveEmployeeService employeeService) {
+        this.employeeService = employeeService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Employee> createEmployee(@RequestBody Employee employee){
+        return employeeService.saveEmployee(employee);
+    }
+
+    //Bulk create, the body is decoded element by element (JSON array or NDJSON)
+    @PostMapping(value = "batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<EmployeeBatchResult> createEmployees(@RequestBody Flux<Employee> employees){
+        return employeeService.saveEmployees(employees);
+    }
+
+    //Rows are written as the client consumes them, as a JSON array or as NDJSON when asked for
+    @GetMapping
+    public Flux<Employee> getAllEmployee(){
+        return employeeService.getAllEmployees();
+    }
+
+    //Keyset pagination: pass the "next" value of the previous page as "after"
+    @GetMapping(params = "limit")
+    public Mono<EmployeePage> getEmployeesPage(@RequestParam(value = "after", required = false) Long after,
+                                               @RequestParam("limit") int limit){
+        return employeeService.getEmployeesPage(after, limit);
+    }
+
+    //Kept for clients of the servlet API, a plain GET already streams here
+    @GetMapping("stream")
+    public Flux<Employee> streamAllEmployees(){
+        return employeeService.getAllEmployees();
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<Employee>> getEmployeeById(@PathVariable("id") long employeeId){
+        return employeeService.getEmployeeById(employeeId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    //Conditional with a "version", unconditional without one, like the servlet controller
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<Employee>> updateEmployee(@PathVariable("id") long employeeId, @RequestBody Employee employee){
+        return employeeService.updateEmployee(employeeId, employee)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PatchMapping(value = "{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<Employee>> patchEmployee(@PathVariable("id") long employeeId, @RequestBody Map<String, Object> patch){
+        return employeeService.patchEmployee(employeeId, patch)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    //The version sent with the update no longer matches the stored one
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentUpdate(OptimisticLockingFailureException e){
+        return new ResponseEntity<String>("Employee was modified by another request",HttpStatus.CONFLICT);
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<String>> deleteEmploye(@PathVariable("id") long employeeId){
+        return employeeService.deleteEmployee(employeeId)
+                .map(deleted -> deleted
+                        ? new ResponseEntity<String>("Employee Deleted Successfully",HttpStatus.OK)
+                        : ResponseEntity.notFound().<String>build());
+    }
+
+}
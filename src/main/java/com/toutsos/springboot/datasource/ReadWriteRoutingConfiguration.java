@@ -0,0 +1,94 @@
+package com.toutsos.springboot.datasource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * employees.datasource.routing.enabled=true replaces the single pool with a primary pool and one
+ * pool per replica url, all with the spring.datasource.hikari settings. Only the routing
+ * DataSource is a bean, so JPA, Flyway and the slow query log see one DataSource as before.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.datasource.routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig primaryHikariConfig(DataSourceProperties properties) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(properties.determineUrl());
+        config.setUsername(properties.determineUsername());
+        config.setPassword(properties.determinePassword());
+        config.setDriverClassName(properties.determineDriverClassName());
+        return config;
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(HikariConfig primaryHikariConfig,
+                                 @Value("${employees.datasource.routing.replica-urls}") List<String> replicaUrls,
+                                 @Value("${employees.datasource.routing.replica-username:${spring.datasource.username}}") String username,
+                                 @Value("${employees.datasource.routing.replica-password:${spring.datasource.password}}") String password,
+                                 @Value("${employees.datasource.routing.max-replication-lag:10s}") Duration maxLag,
+                                 @Value("${employees.datasource.routing.health-check-interval:5s}") Duration healthCheckInterval,
+                                 MeterRegistry meterRegistry) {
+        primaryHikariConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        for (String replicaUrl : replicaUrls) {
+            if (replicaUrl.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + replicas.size();
+            HikariConfig config = new HikariConfig();
+            primaryHikariConfig.copyStateTo(config);
+            config.setPoolName(primaryHikariConfig.getPoolName() + "-" + name);
+            config.setJdbcUrl(replicaUrl.trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            replicas.put(name, new HikariDataSource(config));
+        }
+        ReplicaSet replicaSet = new ReplicaSet(new HikariDataSource(primaryHikariConfig), replicas, maxLag);
+        replicaSet.bindTo(meterRegistry);
+        replicaSet.startHealthChecks(healthCheckInterval);
+        return replicaSet;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaSet replicaSet,
+                                 @Value("${employees.datasource.routing.stickiness:5s}") Duration stickiness,
+                                 MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routingDataSource =
+                new ReadWriteRoutingDataSource(replicaSet, new ReadYourWrites(stickiness), meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaSet replicaSet) {
+        // reads fall back to the primary, so missing replicas are reported but do not take the service down
+        return () -> Health.up()
+                .withDetail("replicas", replicaSet.getReplicas().keySet())
+                .withDetail("healthy", replicaSet.getHealthyReplicas())
+                .build();
+    }
+}
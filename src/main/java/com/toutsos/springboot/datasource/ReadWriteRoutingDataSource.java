@@ -0,0 +1,81 @@
+package com.toutsos.springboot.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * It has to sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the transaction manager asks for the connection before it marks the transaction read-only,
+ * the lazy proxy defers the lookup to the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    static final String ROUTE = "employee.datasource.route";
+
+    private final ReplicaSet replicaSet;
+
+    private final ReadYourWrites readYourWrites;
+
+    private final Counter writes;
+
+    private final Counter readYourWritesReads;
+
+    private final Counter fallbackReads;
+
+    private final Map<String, Counter> replicaReads = new HashMap<>();
+
+    public ReadWriteRoutingDataSource(ReplicaSet replicaSet, ReadYourWrites readYourWrites, MeterRegistry registry) {
+        this.replicaSet = replicaSet;
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>(replicaSet.getReplicas());
+        targets.put(PRIMARY, replicaSet.getPrimary());
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.getPrimary());
+        setLenientFallback(false);
+        writes = route(registry, PRIMARY, "write");
+        readYourWritesReads = route(registry, PRIMARY, "read-your-writes");
+        fallbackReads = route(registry, PRIMARY, "no-healthy-replica");
+        for (String replica : replicaSet.getReplicas().keySet()) {
+            replicaReads.put(replica, route(registry, replica, "read"));
+        }
+    }
+
+    private static Counter route(MeterRegistry registry, String target, String reason) {
+        return Counter.builder(ROUTE)
+                .description("Connections handed out by the read/write routing datasource")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            // plain connections (health checks, schema validation) are not client writes
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWrites.wrote();
+            }
+            return PRIMARY;
+        }
+        if (readYourWrites.mustReadPrimary()) {
+            readYourWritesReads.increment();
+            return PRIMARY;
+        }
+        String replica = replicaSet.nextHealthyReplica();
+        if (replica == null) {
+            fallbackReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.get(replica).increment();
+        return replica;
+    }
+}
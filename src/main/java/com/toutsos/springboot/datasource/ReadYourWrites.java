@@ -0,0 +1,91 @@
+package com.toutsos.springboot.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Read-your-writes for replica reads: a write marks the current request and hands the client a cookie,
+ * and until it expires that client's reads go to the primary instead of a possibly lagging replica.
+ * Outside of an HTTP request there is no session to stick to and nothing happens.
+ */
+public class ReadYourWrites {
+
+    static final String COOKIE = "employees-primary-until";
+
+    private static final String ATTRIBUTE = ReadYourWrites.class.getName() + ".primaryUntil";
+
+    private final long windowMillis;
+
+    private final Clock clock;
+
+    public ReadYourWrites(Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    ReadYourWrites(Duration window, Clock clock) {
+        this.windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    public void wrote() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null || windowMillis <= 0) {
+            return;
+        }
+        long primaryUntil = clock.millis() + windowMillis;
+        boolean cookieSent = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+        attributes.setAttribute(ATTRIBUTE, primaryUntil, RequestAttributes.SCOPE_REQUEST);
+        HttpServletResponse response = attributes.getResponse();
+        if (!cookieSent && response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(primaryUntil));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    public boolean mustReadPrimary() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return false;
+        }
+        Object primaryUntil = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (primaryUntil != null) {
+            return clock.millis() < (Long) primaryUntil;
+        }
+        return isSticky(attributes.getRequest());
+    }
+
+    // the cookie comes from the client, a deadline further away than one window is not ours
+    private boolean isSticky(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        long now = clock.millis();
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    long primaryUntil = Long.parseLong(cookie.getValue());
+                    return primaryUntil > now && primaryUntil <= now + windowMillis;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.toutsos.springboot.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The primary pool and one pool per replica, plus a background check that takes a replica
+ * out of the read rotation while it is unreachable or lags more than the allowed replication delay.
+ */
+public class ReplicaSet implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private final HikariDataSource primary;
+
+    private final Map<String, HikariDataSource> replicas;
+
+    private final long maxLagSeconds;
+
+    // copy on write, read on every routed read-only transaction
+    private volatile List<String> healthyReplicas = Collections.emptyList();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final ScheduledExecutorService healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaSet(HikariDataSource primary, Map<String, HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagSeconds = maxLag.getSeconds();
+    }
+
+    //Checks every replica once before returning, then again every interval
+    public void startHealthChecks(Duration interval) {
+        checkReplicas();
+        healthChecks.scheduleWithFixedDelay(this::checkReplicas, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public Map<String, HikariDataSource> getReplicas() {
+        return Collections.unmodifiableMap(replicas);
+    }
+
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+
+    //Round robin over the healthy replicas, null when there is none
+    public String nextHealthyReplica() {
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    void checkReplicas() {
+        List<String> healthy = new ArrayList<>(replicas.size());
+        for (Map.Entry<String, HikariDataSource> replica : replicas.entrySet()) {
+            if (isHealthy(replica.getKey(), replica.getValue())) {
+                healthy.add(replica.getKey());
+            }
+        }
+        if (!healthy.equals(healthyReplicas)) {
+            log.info("Healthy replicas changed from {} to {}", healthyReplicas, healthy);
+        }
+        healthyReplicas = Collections.unmodifiableList(healthy);
+    }
+
+    private boolean isHealthy(String name, HikariDataSource replica) {
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            return lagWithinLimit(name, statement);
+        } catch (SQLException e) {
+            log.debug("Replica {} is unreachable", name, e);
+            return false;
+        }
+    }
+
+    // an instance that is not replicating (no status row) or does not let us read the status counts as current
+    private boolean lagWithinLimit(String name, Statement statement) {
+        try (ResultSet status = statement.executeQuery("show replica status")) {
+            if (!status.next()) {
+                return true;
+            }
+            long lag = status.getLong("Seconds_Behind_Source");
+            if (status.wasNull()) {
+                log.debug("Replica {} is not applying changes", name);
+                return false;
+            }
+            return lag <= maxLagSeconds;
+        } catch (SQLException e) {
+            log.debug("Replication status of {} is not available", name, e);
+            return true;
+        }
+    }
+
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("employee.datasource.replicas.healthy", this, replicaSet -> replicaSet.getHealthyReplicas().size())
+                .description("Replicas currently receiving read-only transactions")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        healthChecks.shutdownNow();
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
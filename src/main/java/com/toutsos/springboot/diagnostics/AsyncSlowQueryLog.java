@@ -0,0 +1,80 @@
+package com.toutsos.springboot.diagnostics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded hand-off between request threads and the slow query logger.
+ * Request threads never block on logging: when the buffer is full the entry is dropped and counted.
+ */
+public class AsyncSlowQueryLog implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger("slow-query");
+
+    private final BlockingQueue<String> entries;
+
+    private final Consumer<String> writer;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread drainer;
+
+    private volatile boolean running = true;
+
+    public AsyncSlowQueryLog(int capacity) {
+        this(capacity, LOGGER::warn);
+    }
+
+    AsyncSlowQueryLog(int capacity, Consumer<String> writer) {
+        this.entries = new ArrayBlockingQueue<>(capacity);
+        this.writer = writer;
+        this.drainer = new Thread(this::drain, "slow-query-log");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    public boolean offer(String entry) {
+        if (entries.offer(entry)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getPending() {
+        return entries.size();
+    }
+
+    private void drain() {
+        while (running || !entries.isEmpty()) {
+            try {
+                String entry = entries.poll(100, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    writer.accept(entry);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.debug("Could not write slow query entry", e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        drainer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+}
@@ -0,0 +1,30 @@
+package com.toutsos.springboot.diagnostics;
+
+//Remembers which EmployeeRepository method the current thread is executing,
+// so statements seen at the JDBC level can be traced back to their finder
+public final class RepositoryMethodContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    //Returns the previous method, hand it back to restore() once the call is done
+    public static String enter(String repositoryMethod) {
+        String previous = CURRENT.get();
+        CURRENT.set(repositoryMethod);
+        return previous;
+    }
+
+    public static void restore(String previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+}
@@ -0,0 +1,102 @@
+package com.toutsos.springboot.diagnostics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the statements that took at least the threshold, keeps a sample of them and hands a
+ * formatted entry to the {@link AsyncSlowQueryLog}. Fast statements cost one comparison.
+ */
+public class SlowQueryListener implements QueryExecutionListener {
+
+    // a batch can carry thousands of parameter sets, only the first few are worth logging
+    static final int MAX_LOGGED_PARAMETER_SETS = 5;
+
+    static final String REDACTED = "<redacted>";
+
+    private final long thresholdMillis;
+
+    private final double sampleRate;
+
+    private final boolean redactParameters;
+
+    private final AsyncSlowQueryLog slowQueryLog;
+
+    public SlowQueryListener(Duration threshold, double sampleRate, boolean redactParameters,
+                             AsyncSlowQueryLog slowQueryLog) {
+        this.thresholdMillis = threshold.toMillis();
+        this.sampleRate = sampleRate;
+        this.redactParameters = redactParameters;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis) {
+            return;
+        }
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        slowQueryLog.offer(format(execInfo, queryInfoList));
+    }
+
+    String format(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        StringBuilder entry = new StringBuilder(256)
+                .append("duration=").append(execInfo.getElapsedTime()).append("ms")
+                .append(" success=").append(execInfo.isSuccess())
+                .append(" repositoryMethod=").append(RepositoryMethodContext.current())
+                .append(" thread=").append(Thread.currentThread().getName());
+        if (execInfo.isBatch()) {
+            entry.append(" batchSize=").append(execInfo.getBatchSize());
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            entry.append(" query=[").append(queryInfo.getQuery()).append(']');
+            List<List<ParameterSetOperation>> parameterSets = queryInfo.getParametersList();
+            int logged = Math.min(parameterSets.size(), MAX_LOGGED_PARAMETER_SETS);
+            for (int i = 0; i < logged; i++) {
+                entry.append(" params=[");
+                appendParameters(entry, parameterSets.get(i));
+                entry.append(']');
+            }
+            if (parameterSets.size() > logged) {
+                entry.append(" (").append(parameterSets.size() - logged).append(" more parameter sets)");
+            }
+        }
+        return entry.toString();
+    }
+
+    private void appendParameters(StringBuilder entry, List<ParameterSetOperation> parameters) {
+        for (int i = 0; i < parameters.size(); i++) {
+            ParameterSetOperation parameter = parameters.get(i);
+            Object[] args = parameter.getArgs();
+            if (i > 0) {
+                entry.append(", ");
+            }
+            entry.append(args[0]).append('=');
+            if ("setNull".equals(parameter.getMethod().getName())) {
+                entry.append("null");
+            } else {
+                entry.append(render(args.length > 1 ? args[1] : null));
+            }
+        }
+    }
+
+    // ids, counts and flags are kept, anything textual (names, emails) is personal data
+    private String render(Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        return redactParameters ? REDACTED : "'" + value + "'";
+    }
+}
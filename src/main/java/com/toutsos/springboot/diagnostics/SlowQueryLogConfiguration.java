@@ -0,0 +1,67 @@
+package com.toutsos.springboot.diagnostics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces spring.jpa.show-sql: instead of printing every statement on the request thread,
+ * the DataSource is wrapped so only slow statements are sampled into an asynchronous log.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "employees.slow-query-log.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryLogConfiguration {
+
+    @Bean
+    public AsyncSlowQueryLog asyncSlowQueryLog(@Value("${employees.slow-query-log.buffer-size:1024}") int bufferSize) {
+        return new AsyncSlowQueryLog(bufferSize);
+    }
+
+    @Bean
+    public SlowQueryListener slowQueryListener(AsyncSlowQueryLog asyncSlowQueryLog,
+                                               @Value("${employees.slow-query-log.threshold:200ms}") Duration threshold,
+                                               @Value("${employees.slow-query-log.sample-rate:1.0}") double sampleRate,
+                                               @Value("${employees.slow-query-log.redact-parameters:true}") boolean redactParameters) {
+        return new SlowQueryListener(threshold, sampleRate, redactParameters, asyncSlowQueryLog);
+    }
+
+    @Bean
+    public MeterBinder slowQueryLogMetrics(AsyncSlowQueryLog asyncSlowQueryLog) {
+        return registry -> {
+            FunctionCounter.builder("employee.slow-query-log.dropped", asyncSlowQueryLog, AsyncSlowQueryLog::getDropped)
+                    .description("Slow query entries dropped because the buffer was full")
+                    .register(registry);
+            Gauge.builder("employee.slow-query-log.pending", asyncSlowQueryLog, AsyncSlowQueryLog::getPending)
+                    .description("Slow query entries waiting to be written")
+                    .register(registry);
+        };
+    }
+
+    // static so wrapping the DataSource does not force this configuration to be created early
+    @Bean
+    public static BeanPostProcessor slowQueryDataSourcePostProcessor(ObjectProvider<SlowQueryListener> slowQueryListener) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create((DataSource) bean)
+                            .name(beanName)
+                            .listener(slowQueryListener.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
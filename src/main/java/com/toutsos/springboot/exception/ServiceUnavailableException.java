@@ -0,0 +1,13 @@
+package com.toutsos.springboot.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends RuntimeException{
+
+    public ServiceUnavailableException(String message){
+        super(message);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.toutsos.springboot.execution;
+
+import com.toutsos.springboot.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Backpressure for the database: every call that takes a connection needs a permit first. That is an
+ * {@link com.toutsos.springboot.repository.EmployeeRepository} call, a transactional
+ * {@link com.toutsos.springboot.service.EmployeeServiceImpl} method or a write recorded in the change log.
+ * Calls inside a transaction already hold their connection and run without one, so service calls answered
+ * from the indexes and lookups waiting for a coalesced query do not take a permit either.
+ * Callers wait up to the timeout for one and then get a 503, instead of piling up on the connection pool,
+ * which matters once requests run on virtual threads and are no longer bounded by the Tomcat pool.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DbCallLimiter implements MeterBinder {
+
+    private final int maxInFlight;
+
+    private final long timeoutNanos;
+
+    private final Semaphore permits;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public DbCallLimiter(@Value("${employees.execution.max-in-flight-db-calls:10}") int maxInFlight,
+                         @Value("${employees.execution.db-call-timeout:1s}") Duration timeout) {
+        this.maxInFlight = maxInFlight;
+        this.timeoutNanos = timeout.toNanos();
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    // ordered first so the permit is taken before @Transactional asks the pool for a connection
+    @Around("target(com.toutsos.springboot.repository.EmployeeRepository)"
+            + " || (target(com.toutsos.springboot.service.EmployeeServiceImpl)"
+            + " && @annotation(org.springframework.transaction.annotation.Transactional))"
+            + " || execution(* com.toutsos.springboot.changes.EmployeeChangeLog.inTransaction(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // the outermost call took the permit, a second one could wait on a permit this thread holds
+            return joinPoint.proceed();
+        }
+        acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        throw new ServiceUnavailableException("Too many concurrent database calls, retry later");
+    }
+
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("employee.db-calls.in-flight", this, DbCallLimiter::getInFlight)
+                .description("Database calls currently holding a permit")
+                .register(registry);
+        FunctionCounter.builder("employee.db-calls.rejected", this, DbCallLimiter::getRejected)
+                .description("Database calls rejected because no permit was free in time")
+                .register(registry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.toutsos.springboot.execution;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Merges concurrent calls for the same key: the first caller runs the call, callers arriving while it
+ * is in flight wait for its result instead of running their own. Nothing is kept once the call is done,
+ * the next caller for the key runs it again. Failures are rethrown to every waiter.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // waiters get their own copy when the result is mutable
+    private final UnaryOperator<V> share;
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlight(UnaryOperator<V> share) {
+        this.share = share;
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> runningCall = inFlight.putIfAbsent(key, ownCall);
+        if (runningCall != null) {
+            coalesced.increment();
+            return share.apply(await(runningCall));
+        }
+        executed.increment();
+        try {
+            V result = call.get();
+            ownCall.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ownCall);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    //Calls that ran, one per burst of identical lookups
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    //Calls answered with the result of another caller's call
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
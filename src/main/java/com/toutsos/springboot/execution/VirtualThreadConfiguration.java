@@ -0,0 +1,45 @@
+package com.toutsos.springboot.execution;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * employees.execution.mode=virtual: Tomcat runs every request on its own virtual thread, so a request
+ * blocked on JDBC parks instead of holding a platform worker. That needs mysql-connector-j 8.1 or newer,
+ * older drivers block in synchronized blocks and pin the carrier thread for the whole query. The MVC async executor (used by
+ * GET /api/employees/stream) gets virtual threads too. The number of requests touching the database
+ * at once is still bounded by {@link DbCallLimiter}.
+ * The build targets Java 11, so the Java 21 executor is looked up at runtime and startup fails on older JVMs.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "employees.execution.mode", havingValue = "virtual")
+public class VirtualThreadConfiguration {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("employees.execution.mode=virtual needs Java 21 or newer, running on "
+                    + Runtime.version(), e);
+        }
+    }
+}
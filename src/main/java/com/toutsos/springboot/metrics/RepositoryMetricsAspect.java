@@ -0,0 +1,131 @@
+package com.toutsos.springboot.metrics;
+
+import com.toutsos.springboot.diagnostics.RepositoryMethodContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/**
+ * Times every {@link com.toutsos.springboot.repository.EmployeeRepository} call and records
+ * how many rows it returned, tagged by repository method.
+ * Meters are resolved once per method, so the per call cost is two map lookups and the recording itself.
+ * The method is also published in {@link RepositoryMethodContext} for the slow query log.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    static final String INVOCATIONS = "employee.repository.invocations";
+
+    static final String ROWS = "employee.repository.rows";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Method, MethodMeters> metersByMethod = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("target(com.toutsos.springboot.repository.EmployeeRepository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters meters = metersByMethod.computeIfAbsent(method, this::createMeters);
+        String previousMethod = RepositoryMethodContext.enter(meters.qualifiedName);
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            meters.success.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (meters.rows != null) {
+                meters.rows.record(rowCount(result));
+            }
+            return result;
+        } catch (Throwable e) {
+            meters.error.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            RepositoryMethodContext.restore(previousMethod);
+        }
+    }
+
+    private MethodMeters createMeters(Method method) {
+        String name = method.getName();
+        DistributionSummary rows = null;
+        if (returnsRows(method.getReturnType())) {
+            rows = DistributionSummary.builder(ROWS)
+                    .description("Rows returned by EmployeeRepository methods")
+                    .tag("method", name)
+                    .publishPercentiles(PERCENTILES)
+                    .register(meterRegistry);
+        }
+        return new MethodMeters("EmployeeRepository." + name, timer(name, "success"), timer(name, "error"), rows);
+    }
+
+    private Timer timer(String method, String outcome) {
+        return Timer.builder(INVOCATIONS)
+                .description("Latency of EmployeeRepository methods")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // void, counts, flags and streams that are still being read are not row results
+    static boolean returnsRows(Class<?> returnType) {
+        return !returnType.isPrimitive()
+                && !Number.class.isAssignableFrom(returnType)
+                && !Boolean.class.equals(returnType)
+                && !BaseStream.class.isAssignableFrom(returnType);
+    }
+
+    static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+
+    private static final class MethodMeters {
+
+        private final String qualifiedName;
+
+        private final Timer success;
+
+        private final Timer error;
+
+        private final DistributionSummary rows;
+
+        private MethodMeters(String qualifiedName, Timer success, Timer error, DistributionSummary rows) {
+            this.qualifiedName = qualifiedName;
+            this.success = success;
+            this.error = error;
+            this.rows = rows;
+        }
+    }
+}
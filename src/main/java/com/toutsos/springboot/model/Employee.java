@@ -1,20 +1,47 @@
 package com.toutsos.springboot.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
+import java.time.Instant;
 
 @Setter
 @Getter
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 
 @Entity
-@Table(name = "employees")
+//UPDATE statements only carry the columns that actually changed
+@DynamicUpdate
+//kept in line with db/migration, Hibernate validates the mapping against the migrated schema
+@Table(name = "employees",
+        uniqueConstraints = @UniqueConstraint(name = "ux_employees_email", columnNames = "email"),
+        indexes = @Index(name = "ix_employees_last_name_first_name", columnList = "last_name, first_name"))
+//native finders of EmployeeRepository, the result set mapping builds plain objects like its constructor expression
+@SqlResultSetMapping(name = "DetachedEmployee", classes = @ConstructorResult(targetClass = Employee.class, columns = {
+        @ColumnResult(name = "id", type = Long.class),
+        @ColumnResult(name = "first_name", type = String.class),
+        @ColumnResult(name = "last_name", type = String.class),
+        @ColumnResult(name = "email", type = String.class),
+        @ColumnResult(name = "version", type = Long.class),
+        @ColumnResult(name = "updated_at", type = Instant.class)}))
+@NamedNativeQuery(name = "Employee.findByNativeSQL", resultSetMapping = "DetachedEmployee",
+        query = "select e.id, e.first_name, e.last_name, e.email, e.version, e.updated_at from employees e " +
+                "where e.first_name = ?1 and e.last_name = ?2")
+@NamedNativeQuery(name = "Employee.findByNativeSQLNamedParams", resultSetMapping = "DetachedEmployee",
+        query = "select e.id, e.first_name, e.last_name, e.email, e.version, e.updated_at from employees e " +
+                "where e.first_name = :firstName and e.last_name = :lastName")
+//the same class is mapped by Spring Data R2DBC for the reactive profile
+@org.springframework.data.relational.core.mapping.Table("employees")
 public class Employee {
 
     @Id
+    @org.springframework.data.annotation.Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
@@ -26,4 +53,19 @@ public class Employee {
 
     @Column(nullable = false)
     private String email;
+
+    //Optimistic locking, bumped by every update. Clients send it back to detect concurrent changes
+    @Version
+    @org.springframework.data.annotation.Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
+    //Stamped by MySQL on every insert and update (on update current_timestamp), never written by the application.
+    // Read back by the queries only, so the employee returned by a write does not carry it
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    @org.springframework.data.annotation.ReadOnlyProperty
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Instant updatedAt;
 }
@@ -0,0 +1,41 @@
+package com.toutsos.springboot.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EmployeeBatchResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    //position of the employee in the submitted batch
+    private final int index;
+
+    private final Status status;
+
+    private final Long id;
+
+    private final String email;
+
+    private final String message;
+
+    public static EmployeeBatchResult created(int index, Employee employee){
+        return new EmployeeBatchResult(index, Status.CREATED, employee.getId(), employee.getEmail(), null);
+    }
+
+    public static EmployeeBatchResult duplicate(int index, Employee employee){
+        return new EmployeeBatchResult(index, Status.DUPLICATE, null, employee.getEmail(),
+                "Employee already exists with given email " + employee.getEmail());
+    }
+
+    public static EmployeeBatchResult invalid(int index, Employee employee, String message){
+        return new EmployeeBatchResult(index, Status.INVALID, null, employee.getEmail(), message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+//Body of DELETE /api/employees, either the ids or the email domain (everything after the @) to delete
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeBulkDelete {
+
+    private List<Long> ids;
+
+    private String emailDomain;
+}
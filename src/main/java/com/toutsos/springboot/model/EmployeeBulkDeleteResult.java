@@ -0,0 +1,12 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class EmployeeBulkDeleteResult {
+
+    //rows actually deleted, ids that did not exist are not counted
+    private final int deleted;
+}
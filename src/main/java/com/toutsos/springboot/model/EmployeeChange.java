@@ -0,0 +1,27 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class EmployeeChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    //position in the change stream, pass the last one seen as "since"
+    private final long sequence;
+
+    private final Type type;
+
+    private final Instant changedAt;
+
+    //the employee after the change, for DELETED the last state before it
+    private final Employee employee;
+}
@@ -0,0 +1,16 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class EmployeeChangePage {
+
+    private final List<EmployeeChange> content;
+
+    //sequence to pass as "since" for the next read, the same "since" again when nothing changed
+    private final long next;
+}
@@ -0,0 +1,27 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+//An employee already serialized to UTF-8 JSON. The bytes are shared between requests and never modified
+@Getter
+@AllArgsConstructor
+public class EmployeeJson {
+
+    private final long id;
+
+    //quoted entity tag, changes with every update because the version does
+    private final String etag;
+
+    private final byte[] bytes;
+
+    // an employee with a buffered write-behind update has no version yet, its tag is a hash of the JSON instead,
+    // so it changes with the update and again once the update is written and the version is bumped
+    public static String etag(Employee employee, byte[] bytes) {
+        if (employee.getVersion() == null) {
+            return "\"" + employee.getId() + "-" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+        }
+        return "\"" + employee.getId() + "-" + employee.getVersion() + "\"";
+    }
+}
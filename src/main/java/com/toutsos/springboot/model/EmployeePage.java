@@ -0,0 +1,16 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class EmployeePage {
+
+    private final List<Employee> content;
+
+    //id to pass as "after" for the next page, null when this is the last page
+    private final Long next;
+}
@@ -0,0 +1,21 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class EmployeeSearchPage {
+
+    //best matches first
+    private final List<Employee> content;
+
+    private final int page;
+
+    private final int size;
+
+    //matches over all pages
+    private final int total;
+}
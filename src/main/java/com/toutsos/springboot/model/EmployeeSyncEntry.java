@@ -0,0 +1,27 @@
+package com.toutsos.springboot.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class EmployeeSyncEntry {
+
+    private final long id;
+
+    //sequence of the change in the change log, the watermark of this entry
+    private final long sequence;
+
+    //updatedAt of the employee, or when it was deleted
+    private final Instant modifiedAt;
+
+    //a tombstone: the mirror drops the employee with this id
+    private final boolean deleted;
+
+    //the employee as it is now, null for tombstones
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Employee employee;
+}
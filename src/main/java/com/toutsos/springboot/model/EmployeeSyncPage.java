@@ -0,0 +1,19 @@
+package com.toutsos.springboot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class EmployeeSyncPage {
+
+    private final List<EmployeeSyncEntry> content;
+
+    //watermark of the last entry, its sequence and id. Pass both back as "modifiedSince" and "after"
+    // for the next page or the next sync. The same values again when nothing changed
+    private final long modifiedSince;
+
+    private final long after;
+}
@@ -0,0 +1,77 @@
+package com.toutsos.springboot.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * AIMD concurrency limit: requests beyond the limit are refused. A response within the latency
+ * threshold raises the limit by 1/limit (about one per limit responses) while the limit is in use,
+ * a slower or failed one multiplies it by the backoff, at most once per threshold interval so one
+ * burst of slow responses does not collapse it. Latency climbs before MySQL runs out of connections,
+ * so the limit backs off before the pool saturates.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoff;
+
+    private double limit;
+
+    private int inFlight;
+
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoff) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release(long latencyNanos, boolean failed, long now) {
+        int wasInFlight = inFlight--;
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            decrease(now);
+        } else if (wasInFlight * 2 >= (int) limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    //For responses that are slow by design, every row or a whole batch: their latency is not compared
+    // with the threshold, only a failure lowers the limit
+    public synchronized void releaseUnmeasured(boolean failed, long now) {
+        inFlight--;
+        if (failed) {
+            decrease(now);
+        }
+    }
+
+    private void decrease(long now) {
+        if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoff);
+            lastDecreaseNanos = now;
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,265 @@
+package com.toutsos.springboot.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Sheds load on /api/employees before it reaches the service and MySQL. Every client (remote address)
+ * gets a token bucket per endpoint and is answered 429 with Retry-After once it is empty. Behind trusted
+ * proxies the remote address is the forwarded client address (server.forward-headers-strategy=native), not
+ * the proxy's, which would put every client in the same bucket; requests that
+ * pass then need a slot from the {@link AdaptiveConcurrencyLimiter} or are answered 503. Full-table reads
+ * and batches hold a slot too, but their latency does not feed the limit, it is long whatever the load.
+ * Decisions are counted in employee.limiter.decisions, tagged by limiter, outcome and endpoint.
+ */
+public class EmployeeRateLimitFilter extends OncePerRequestFilter {
+
+    static final String DECISIONS = "employee.limiter.decisions";
+
+    static final String BASE_PATH = "/api/employees";
+
+    private static final Pattern ID_PATH = Pattern.compile(BASE_PATH + "/\\d+");
+
+    private final Limit defaultLimit;
+
+    private final Limit fullTableLimit;
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Ticker ticker;
+
+    private final Cache<String, TokenBucket> buckets;
+
+    private final ConcurrentMap<String, EndpointMeters> metersByEndpoint = new ConcurrentHashMap<>();
+
+    public EmployeeRateLimitFilter(Limit defaultLimit, Limit fullTableLimit, long maximumBuckets,
+                                   AdaptiveConcurrencyLimiter concurrencyLimiter, MeterRegistry meterRegistry, Ticker ticker) {
+        this.defaultLimit = defaultLimit;
+        this.fullTableLimit = fullTableLimit;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.meterRegistry = meterRegistry;
+        this.ticker = ticker;
+        // an idle bucket refills to full anyway, so dropping it loses nothing
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(Duration.ofMinutes(5))
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String endpoint = endpoint(request);
+        EndpointMeters meters = metersByEndpoint.computeIfAbsent(endpoint, this::createMeters);
+        long now = ticker.read();
+        TokenBucket bucket = buckets.get(request.getRemoteAddr() + ' ' + endpoint, key -> newBucket(endpoint, now));
+        if (!bucket.tryTake(now)) {
+            meters.rateRejected.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, bucket.nanosUntilNextToken(now));
+            return;
+        }
+        meters.rateAllowed.increment();
+        if (isLongLived(endpoint)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            meters.concurrencyRejected.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 0);
+            return;
+        }
+        meters.concurrencyAllowed.increment();
+        boolean measured = !isSlowByDesign(endpoint);
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            // streamed responses are still being written when the dispatch returns
+            if (!failed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(start, measured, response));
+            } else {
+                release(start, measured, failed || response.getStatus() >= 500);
+            }
+        }
+    }
+
+    private void release(long start, boolean measured, boolean failed) {
+        long end = System.nanoTime();
+        if (measured) {
+            concurrencyLimiter.release(end - start, failed, end);
+        } else {
+            concurrencyLimiter.releaseUnmeasured(failed, end);
+        }
+    }
+
+    // one token bucket per method and route, query strings and ids are not part of the key
+    static String endpoint(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String route;
+        if (BASE_PATH.equals(path)) {
+            if (request.getParameter("modifiedSince") != null) {
+                route = BASE_PATH + "?modifiedSince";
+            } else {
+                route = request.getParameter("limit") == null ? BASE_PATH : BASE_PATH + "?limit";
+            }
+        } else if (ID_PATH.matcher(path).matches()) {
+            route = BASE_PATH + "/{id}";
+        } else if (path.equals(BASE_PATH + "/stream") || path.equals(BASE_PATH + "/search") || path.equals(BASE_PATH + "/batch")
+                || path.equals(BASE_PATH + "/changes") || path.equals(BASE_PATH + "/changes/stream")) {
+            route = path;
+        } else {
+            route = BASE_PATH + "/**";
+        }
+        return method(request.getMethod()) + ' ' + route;
+    }
+
+    // GET /api/employees without a limit and the stream read every row
+    static boolean isFullTable(String endpoint) {
+        return endpoint.equals("GET " + BASE_PATH) || endpoint.equals("GET " + BASE_PATH + "/stream");
+    }
+
+    // every row or a whole batch, slow however idle MySQL is. Counting them as slow responses would
+    // drive the shared limit down to its minimum for the fast endpoints
+    static boolean isSlowByDesign(String endpoint) {
+        return isFullTable(endpoint) || endpoint.endsWith(" " + BASE_PATH + "/batch");
+    }
+
+    // a change stream stays open for minutes and would hold a concurrency slot all along,
+    // its latency says nothing about the database. Opening one is still rate limited
+    static boolean isLongLived(String endpoint) {
+        return endpoint.equals("GET " + BASE_PATH + "/changes/stream");
+    }
+
+    private static String method(String method) {
+        switch (method) {
+            case "GET":
+            case "POST":
+            case "PUT":
+            case "PATCH":
+            case "DELETE":
+                return method;
+            default:
+                return "OTHER";
+        }
+    }
+
+    private TokenBucket newBucket(String endpoint, long now) {
+        Limit limit = isFullTable(endpoint) ? fullTableLimit : defaultLimit;
+        return new TokenBucket(limit.getRate(), limit.getBurst(), now);
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    private EndpointMeters createMeters(String endpoint) {
+        return new EndpointMeters(counter(endpoint, "rate", "allowed"), counter(endpoint, "rate", "rejected"),
+                counter(endpoint, "concurrency", "allowed"), counter(endpoint, "concurrency", "rejected"));
+    }
+
+    private Counter counter(String endpoint, String limiter, String outcome) {
+        return Counter.builder(DECISIONS)
+                .description("Requests to /api/employees let through or rejected by the rate and concurrency limiters")
+                .tag("endpoint", endpoint)
+                .tag("limiter", limiter)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    //Token bucket settings: rate tokens per second, at most burst of them saved up
+    public static final class Limit {
+
+        private final double rate;
+
+        private final int burst;
+
+        public Limit(double rate, int burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+    }
+
+    private final class ReleaseOnComplete implements AsyncListener {
+
+        private final long start;
+
+        private final boolean measured;
+
+        private final HttpServletResponse response;
+
+        private ReleaseOnComplete(long start, boolean measured, HttpServletResponse response) {
+            this.start = start;
+            this.measured = measured;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(start, measured, response.getStatus() >= 500);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private static final class EndpointMeters {
+
+        private final Counter rateAllowed;
+
+        private final Counter rateRejected;
+
+        private final Counter concurrencyAllowed;
+
+        private final Counter concurrencyRejected;
+
+        private EndpointMeters(Counter rateAllowed, Counter rateRejected, Counter concurrencyAllowed, Counter concurrencyRejected) {
+            this.rateAllowed = rateAllowed;
+            this.rateRejected = rateRejected;
+            this.concurrencyAllowed = concurrencyAllowed;
+            this.concurrencyRejected = concurrencyRejected;
+        }
+    }
+}
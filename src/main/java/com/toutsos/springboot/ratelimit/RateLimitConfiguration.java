@@ -0,0 +1,66 @@
+package com.toutsos.springboot.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Puts the {@link EmployeeRateLimitFilter} in front of /api/employees only, actuator and
+ * error pages are never limited. Disable it with employees.rate-limit.enabled=false.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfiguration {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter employeeConcurrencyLimiter(
+            @Value("${employees.rate-limit.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${employees.rate-limit.concurrency.min-limit:5}") int minLimit,
+            @Value("${employees.rate-limit.concurrency.max-limit:200}") int maxLimit,
+            @Value("${employees.rate-limit.concurrency.latency-threshold:250ms}") Duration latencyThreshold,
+            @Value("${employees.rate-limit.concurrency.backoff:0.9}") double backoff) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold, backoff);
+    }
+
+    // runs after the metrics filter, so rejected requests still show up in http.server.requests
+    @Bean
+    public FilterRegistrationBean<EmployeeRateLimitFilter> employeeRateLimitFilter(
+            AdaptiveConcurrencyLimiter employeeConcurrencyLimiter, MeterRegistry meterRegistry,
+            @Value("${employees.rate-limit.default.rate:100}") double defaultRate,
+            @Value("${employees.rate-limit.default.burst:200}") int defaultBurst,
+            @Value("${employees.rate-limit.full-table.rate:1}") double fullTableRate,
+            @Value("${employees.rate-limit.full-table.burst:5}") int fullTableBurst,
+            @Value("${employees.rate-limit.maximum-buckets:100000}") long maximumBuckets) {
+        EmployeeRateLimitFilter filter = new EmployeeRateLimitFilter(
+                new EmployeeRateLimitFilter.Limit(defaultRate, defaultBurst),
+                new EmployeeRateLimitFilter.Limit(fullTableRate, fullTableBurst),
+                maximumBuckets, employeeConcurrencyLimiter, meterRegistry, Ticker.systemTicker());
+        FilterRegistrationBean<EmployeeRateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns(EmployeeRateLimitFilter.BASE_PATH, EmployeeRateLimitFilter.BASE_PATH + "/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder employeeConcurrencyLimiterMetrics(AdaptiveConcurrencyLimiter employeeConcurrencyLimiter) {
+        return registry -> {
+            Gauge.builder("employee.limiter.concurrency.limit", employeeConcurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .description("Current adaptive concurrency limit for /api/employees")
+                    .register(registry);
+            Gauge.builder("employee.limiter.concurrency.in-flight", employeeConcurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .description("Requests to /api/employees currently holding a concurrency slot")
+                    .register(registry);
+        };
+    }
+}
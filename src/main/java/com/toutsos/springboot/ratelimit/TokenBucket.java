@@ -0,0 +1,39 @@
+package com.toutsos.springboot.ratelimit;
+
+//Refills rate tokens per second up to burst, every request takes one. Times come from the caller's ticker
+final class TokenBucket {
+
+    private final double capacity;
+
+    private final double tokensPerNano;
+
+    private double tokens;
+
+    private long refilledAt;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.capacity = burst;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = burst;
+        this.refilledAt = now;
+    }
+
+    synchronized boolean tryTake(long now) {
+        refill(now);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    synchronized long nanosUntilNextToken(long now) {
+        refill(now);
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+}
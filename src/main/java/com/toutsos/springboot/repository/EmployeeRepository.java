@@ -2,32 +2,85 @@ package com.toutsos.springboot.repository;
 
 
 import com.toutsos.springboot.model.Employee;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface EmployeeRepository extends JpaRepository<Employee,Long>{
+//Finders run in read-only transactions, so with read/write routing enabled they are served by a replica
+@Transactional(readOnly = true)
+public interface EmployeeRepository extends JpaRepository<Employee,Long>, EmployeeRepositoryCustom {
+
+    //Read models for the read endpoints: the constructor expression builds plain Employee objects that never
+    // enter the persistence context, so Hibernate keeps no entity entry or snapshot for them and has nothing to
+    // dirty check. Use findById for an employee that is going to be changed
+    String DETACHED_EMPLOYEE =
+            "select new com.toutsos.springboot.model.Employee(e.id, e.firstName, e.lastName, e.email, e.version, e.updatedAt) from Employee e ";
 
     Optional<Employee> findByEmail(String email);
 
+    @Query(DETACHED_EMPLOYEE + "where e.id = :id")
+    Optional<Employee> findDetachedById(@Param("id") long id);
+
+    @Query(DETACHED_EMPLOYEE + "order by e.id")
+    List<Employee> findAllDetached();
+
+    //Keyset pagination, seeks on the primary key instead of using OFFSET
+    @Query(DETACHED_EMPLOYEE + "where e.id > :id order by e.id")
+    List<Employee> findDetachedByIdGreaterThan(@Param("id") long id, Pageable pageable);
+
+    //Set based duplicate check, one round trip for a whole chunk of emails
+    @Query("select e.email from Employee e where e.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    //Single statement update, returns the affected rows (0 when the id is unknown or the version is stale).
+    // A null version skips the optimistic check
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Employee e set e.firstName = :firstName, e.lastName = :lastName, e.email = :email, " +
+            "e.version = e.version + 1 where e.id = :id and (:version is null or e.version = :version)")
+    int updateById(@Param("id") long id, @Param("firstName") String firstName, @Param("lastName") String lastName,
+                   @Param("email") String email, @Param("version") Long version);
+
+    //The stored version alone, read back after an unconditional update
+    @Query("select e.version from Employee e where e.id = :id")
+    Optional<Long> findVersionById(@Param("id") long id);
+
+    //Single statement delete without loading the entity first, returns the affected rows (0 when the id is unknown)
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Employee e where e.id = :id")
+    int deleteRowById(@Param("id") long id);
+
+    //Set based delete of a chunk of ids, one DELETE ... WHERE id IN (...) statement
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Employee e where e.id in :ids")
+    int deleteRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    //Only the ids, used to resolve the email domain filter of the bulk delete
+    @Query("select e.id from Employee e where e.email like :pattern order by e.id")
+    List<Long> findIdsByEmailLike(@Param("pattern") String pattern);
+
     //Define custom querry using JPQL using index params
-    @Query("select e from Employee e where e.firstName = ?1 and e.lastName = ?2")
+    @Query(DETACHED_EMPLOYEE + "where e.firstName = ?1 and e.lastName = ?2")
     Employee findByJPQL(String firstName, String lastName);
 
     //Define custom querry using JPQL with named params
-    @Query("select e from Employee e where e.firstName =:firstName and e.lastName =:lastName")
+    @Query(DETACHED_EMPLOYEE + "where e.firstName =:firstName and e.lastName =:lastName")
     Employee findByJPQLNamedParams(@Param("firstName") String firstName,@Param("lastName") String lastName);
 
-    //Define custom querry using Native query
-    @Query(value = "select * from employees e where e.first_name =?1 and e.last_name =?2",
-    nativeQuery = true)
+    //Define custom querry using Native query. A native @Query maps its rows to managed entities, so the
+    // query is the Employee.findByNativeSQL named native query with the DetachedEmployee result set mapping
     Employee findByNativeSQL(String firstName, String lastName);
 
-    //Define custom querry using Native query with named params
-    @Query(value = "select * from employees e where e.first_name =:firstName and e.last_name =:lastName",
-            nativeQuery = true)
+    //Define custom querry using Native query with named params, Employee.findByNativeSQLNamedParams
     Employee findByNativeSQLNamedParams(@Param("firstName") String firstName, @Param("lastName") String lastName);
 
 }
@@ -0,0 +1,25 @@
+package com.toutsos.springboot.repository;
+
+import com.toutsos.springboot.model.Employee;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface EmployeeRepositoryCustom {
+
+    //Walks the whole table in id order through a forward-only cursor,
+    // rows are read as detached employees so the persistence context stays empty
+    void streamAll(int fetchSize, Consumer<Employee> action);
+
+    //Inserts all employees with one JDBC batch and sets the generated ids on them,
+    // bypasses Hibernate because IDENTITY ids disable its insert batching
+    @Transactional
+    void insertAll(List<Employee> employees);
+
+    //Updates the names and emails of all employees with one JDBC batch and bumps their versions,
+    // without a version check. Returns the updated row count per employee, 0 for an unknown id
+    @Transactional
+    int[] updateAll(List<Employee> employees);
+
+}
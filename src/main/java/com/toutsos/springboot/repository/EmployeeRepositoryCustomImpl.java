@@ -0,0 +1,95 @@
+package com.toutsos.springboot.repository;
+
+import com.toutsos.springboot.model.Employee;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class EmployeeRepositoryCustomImpl implements EmployeeRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "insert into employees (first_name, last_name, email) values (?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "update employees set first_name = ?, last_name = ?, email = ?, version = version + 1 where id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EmployeeRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void streamAll(int fetchSize, Consumer<Employee> action) {
+        try (Stream<Employee> employees = entityManager
+                .createQuery(EmployeeRepository.DETACHED_EMPLOYEE + "order by e.id", Employee.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()) {
+            employees.forEach(action);
+        }
+    }
+
+    @Override
+    public void insertAll(List<Employee> employees) {
+        if (employees.isEmpty()){
+            return;
+        }
+        // with rewriteBatchedStatements the driver sends the batch as multi-row inserts
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Employee employee : employees) {
+                    statement.setString(1, employee.getFirstName());
+                    statement.setString(2, employee.getLastName());
+                    statement.setString(3, employee.getEmail());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < employees.size()) {
+                        employees.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int[] updateAll(List<Employee> employees) {
+        if (employees.isEmpty()){
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Employee employee = employees.get(i);
+                statement.setString(1, employee.getFirstName());
+                statement.setString(2, employee.getLastName());
+                statement.setString(3, employee.getEmail());
+                statement.setLong(4, employee.getId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return employees.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.toutsos.springboot.repository;
+
+import com.toutsos.springboot.model.Employee;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+//R2DBC counterpart of EmployeeRepository over the same employees table, used by the reactive profile.
+// Employee is an @Entity, so without the profile the JPA repository scan of the servlet stack claims this
+// interface too and fails with "Reactive Repositories are not supported by JPA"
+@Profile("reactive")
+public interface ReactiveEmployeeRepository extends R2dbcRepository<Employee, Long> {
+
+    Mono<Employee> findByEmail(String email);
+
+    //Keyset pagination, seeks on the primary key instead of using OFFSET
+    @Query("select * from employees where id > :afterId order by id limit :limit")
+    Flux<Employee> findPageAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    //Set based duplicate check, one round trip for a whole chunk of emails
+    @Query("select email from employees where email in (:emails)")
+    Flux<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    //Single statement update, emits the affected rows (0 when the id is unknown or the version is stale).
+    // A null version skips the optimistic check
+    @Modifying
+    @Query("update employees set first_name = :firstName, last_name = :lastName, email = :email, " +
+            "version = version + 1 where id = :id and (:version is null or version = :version)")
+    Mono<Integer> updateById(@Param("id") long id, @Param("firstName") String firstName, @Param("lastName") String lastName,
+                             @Param("email") String email, @Param("version") Long version);
+
+    //The stored version alone, read back after an unconditional update
+    @Query("select version from employees where id = :id")
+    Mono<Long> findVersionById(@Param("id") long id);
+
+    //Single statement delete, emits the affected rows (0 when the id is unknown)
+    @Modifying
+    @Query("delete from employees where id = :id")
+    Mono<Integer> deleteRowById(@Param("id") long id);
+
+}
@@ -0,0 +1,25 @@
+package com.toutsos.springboot.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+//Index and cache updates of a write, shared by the servlet services. Inside a transaction they run once it
+// committed, so readers never see a write that is rolled back. Without one the write is already committed
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable update){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()){
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,245 @@
+package com.toutsos.springboot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeJson;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.model.EmployeeSearchPage;
+import com.toutsos.springboot.writebehind.EmployeeUpdatesFlushedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of {@link EmployeeServiceImpl}.
+ * Lookups by id are served from a bounded in-process cache, missing ids are cached too
+ * (with a shorter ttl) and every write through this service refreshes or drops the entry.
+ * The JSON of hot employees is kept as well, bounded by its size in bytes, so GET /api/employees/{id}
+ * writes cached bytes instead of running Jackson again.
+ * Disable it with employees.cache.enabled=false.
+ */
+@Service
+@Primary
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingEmployeeService implements EmployeeService, MeterBinder {
+
+    private EmployeeService employeeService;
+
+    private ObjectMapper objectMapper;
+
+    private Cache<Long, Optional<Employee>> employeesById;
+
+    private Cache<Long, EmployeeJson> jsonById;
+
+    @Autowired
+    public CachingEmployeeService(@Qualifier("employeeServiceImpl") EmployeeService employeeService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${employees.cache.maximum-size:10000}") long maximumSize,
+                                  @Value("${employees.cache.ttl:10m}") Duration ttl,
+                                  @Value("${employees.cache.negative-ttl:30s}") Duration negativeTtl,
+                                  @Value("${employees.cache.json-maximum-size:16MB}") DataSize jsonMaximumSize) {
+        this(employeeService, objectMapper, maximumSize, ttl, negativeTtl, jsonMaximumSize.toBytes(), Ticker.systemTicker());
+    }
+
+    CachingEmployeeService(EmployeeService employeeService, ObjectMapper objectMapper, long maximumSize,
+                           Duration ttl, Duration negativeTtl, long jsonMaximumBytes, Ticker ticker) {
+        this.employeeService = employeeService;
+        this.objectMapper = objectMapper;
+        this.jsonById = Caffeine.newBuilder()
+                .maximumWeight(jsonMaximumBytes)
+                .weigher((Long id, EmployeeJson json) -> json.getBytes().length)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.employeesById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<Employee>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<Employee> employee, long currentTime) {
+                        return employee.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<Employee> employee, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, employee, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<Employee> employee, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    // the saved employee lacks the updatedAt MySQL stamped, so the entry is dropped instead of filled
+    @Override
+    public Employee saveEmployee(Employee employee) {
+        Employee savedEmployee = employeeService.saveEmployee(employee);
+        invalidate(List.of(savedEmployee.getId()));
+        return savedEmployee;
+    }
+
+    @Override
+    public List<EmployeeBatchResult> saveEmployees(List<Employee> employees) {
+        List<EmployeeBatchResult> results = employeeService.saveEmployees(employees);
+        List<Long> ids = new ArrayList<>(results.size());
+        for (EmployeeBatchResult result : results) {
+            if (result.getId() != null) {
+                ids.add(result.getId());
+            }
+        }
+        invalidate(ids);
+        return results;
+    }
+
+    @Override
+    public List<Employee> getAllEmployees() {
+        return employeeService.getAllEmployees();
+    }
+
+    @Override
+    public EmployeePage getEmployeesPage(Long afterId, int limit) {
+        return employeeService.getEmployeesPage(afterId, limit);
+    }
+
+    @Override
+    public void forEachEmployee(Consumer<Employee> action) {
+        employeeService.forEachEmployee(action);
+    }
+
+    // callers get their own copy, so changing a returned employee never changes the cached one
+    @Override
+    public Optional<Employee> getEmployeeById(long id) {
+        return employeesById.get(id, key -> employeeService.getEmployeeById(key).map(CachingEmployeeService::copy))
+                .map(CachingEmployeeService::copy);
+    }
+
+    // missing ids are answered by the negative entries of employeesById, so only found employees are serialized
+    @Override
+    public Optional<EmployeeJson> getEmployeeJson(long id) {
+        return Optional.ofNullable(jsonById.get(id, key -> getEmployeeById(key)
+                .map(employee -> EmployeeServiceImpl.toJson(objectMapper, employee))
+                .orElse(null)));
+    }
+
+    // the update does not read the row back, so the entry is dropped instead of refreshed
+    @Override
+    public Optional<Employee> updateEmployee(long id, Employee employee) {
+        try {
+            return employeeService.updateEmployee(id, employee);
+        } finally {
+            invalidate(List.of(id));
+        }
+    }
+
+    // like an update, the patched employee lacks the new updatedAt
+    @Override
+    public Optional<Employee> patchEmployee(long id, Map<String, Object> patch) {
+        try {
+            return employeeService.patchEmployee(id, patch);
+        } finally {
+            invalidate(List.of(id));
+        }
+    }
+
+    @Override
+    public boolean deleteEmployee(long id) {
+        try {
+            return employeeService.deleteEmployee(id);
+        } finally {
+            invalidate(List.of(id));
+        }
+    }
+
+    @Override
+    public int deleteEmployees(Collection<Long> ids) {
+        try {
+            return employeeService.deleteEmployees(ids);
+        } finally {
+            invalidate(ids);
+        }
+    }
+
+    @Override
+    public List<Long> getEmployeeIdsByEmailDomain(String emailDomain) {
+        return employeeService.getEmployeeIdsByEmailDomain(emailDomain);
+    }
+
+    // already served from memory by the search index
+    @Override
+    public EmployeeSearchPage searchEmployees(String query, int page, int size) {
+        return employeeService.searchEmployees(query, page, size);
+    }
+
+    public CacheStats getCacheStats() {
+        return employeesById.stats();
+    }
+
+    public long getCacheSize() {
+        return employeesById.estimatedSize();
+    }
+
+    public CacheStats getJsonCacheStats() {
+        return jsonById.stats();
+    }
+
+    // hit, miss, eviction and size meters under cache.* tagged cache=employeesById and cache=employeeJsonById
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, employeesById, "employeesById");
+        CaffeineCacheMetrics.monitor(registry, jsonById, "employeeJsonById");
+    }
+
+    //Drops every cached employee, for writes that did not go through this service
+    public void invalidateAll() {
+        employeesById.invalidateAll();
+        jsonById.invalidateAll();
+    }
+
+    // cached employees carry the version from before the buffered update was written
+    @EventListener
+    public void onUpdatesFlushed(EmployeeUpdatesFlushedEvent event) {
+        employeesById.invalidateAll(event.getIds());
+        jsonById.invalidateAll(event.getIds());
+    }
+
+    // when the caller runs in a transaction, once it committed. Before, a read could cache the row as it was again
+    private void invalidate(Collection<Long> ids) {
+        AfterCommit.run(() -> {
+            employeesById.invalidateAll(ids);
+            jsonById.invalidateAll(ids);
+        });
+    }
+
+    private static Employee copy(Employee employee) {
+        return employee.toBuilder().build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.toutsos.springboot.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory email -> id index used to skip the database on the duplicate email check.
+ * A miss is trusted once the index is warm, a hit is only a hint and gets confirmed
+ * against the database, so stale entries can cost a query but never reject a valid email.
+ * The unique key on employees.email stays the real guarantee.
+ * Writes index after their commit, in no particular order, so an entry is only replaced by the same or a
+ * newer version of the employee. Updates without a version (write-behind) always replace it.
+ */
+@Component
+public class EmployeeEmailIndex {
+
+    private final ConcurrentHashMap<String, Long> idsByEmail = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, IndexedEmail> emailsById = new ConcurrentHashMap<>();
+
+    private volatile boolean warm;
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public void markWarm() {
+        warm = true;
+    }
+
+    public boolean mightContain(String email) {
+        return email != null && idsByEmail.containsKey(normalize(email));
+    }
+
+    public boolean containsId(long id) {
+        return emailsById.containsKey(id);
+    }
+
+    //Id the email currently belongs to, null when the index does not know it
+    public Long idOf(String email) {
+        return email == null ? null : idsByEmail.get(normalize(email));
+    }
+
+    public void put(long id, String email) {
+        put(id, email, null);
+    }
+
+    // compute runs atomically per id, so the version check and both maps stay in step
+    public void put(long id, String email, Long version) {
+        if (email == null){
+            return;
+        }
+        String key = normalize(email);
+        emailsById.compute(id, (ignored, indexed) -> {
+            if (indexed != null && isOlder(version, indexed.version)){
+                return indexed;
+            }
+            if (indexed != null && !indexed.email.equals(key)){
+                idsByEmail.remove(indexed.email, id);
+            }
+            idsByEmail.put(key, id);
+            return new IndexedEmail(key, version);
+        });
+    }
+
+    public void remove(long id) {
+        emailsById.computeIfPresent(id, (ignored, indexed) -> {
+            idsByEmail.remove(indexed.email, id);
+            return null;
+        });
+    }
+
+    public int size() {
+        return idsByEmail.size();
+    }
+
+    // MySQL compares emails with a case insensitive collation
+    static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isOlder(Long version, Long indexedVersion) {
+        return version != null && indexedVersion != null && version < indexedVersion;
+    }
+
+    private static final class IndexedEmail {
+
+        private final String email;
+
+        private final Long version;
+
+        private IndexedEmail(String email, Long version) {
+            this.email = email;
+            this.version = version;
+        }
+    }
+}
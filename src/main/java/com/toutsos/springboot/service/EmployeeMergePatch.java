@@ -0,0 +1,61 @@
+package com.toutsos.springboot.service;
+
+import com.toutsos.springboot.exception.BadRequestException;
+import com.toutsos.springboot.model.Employee;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Map;
+import java.util.Objects;
+
+//JSON Merge Patch (RFC 7396) rules for an employee, shared by the servlet and the reactive services
+final class EmployeeMergePatch {
+
+    private EmployeeMergePatch() {
+    }
+
+    //Applies the supplied fields to the employee. A "version" member makes the patch conditional
+    static void apply(Employee employee, Map<String, Object> patch){
+        if (patch.containsKey("version") && !Objects.equals(toVersion(patch.get("version")), employee.getVersion())){
+            throw new ObjectOptimisticLockingFailureException(Employee.class, employee.getId());
+        }
+        for (Map.Entry<String, Object> change : patch.entrySet()){
+            switch (change.getKey()){
+                case "firstName":
+                    employee.setFirstName(requiredText(change));
+                    break;
+                case "lastName":
+                    employee.setLastName(requiredText(change));
+                    break;
+                case "email":
+                    employee.setEmail(requiredText(change));
+                    break;
+                case "id":
+                case "version":
+                case "updatedAt":
+                    // the id comes from the path, the version is only a precondition and updatedAt is
+                    // read-only, like a PUT ignores it
+                    break;
+                default:
+                    throw new BadRequestException("Unknown employee field "+change.getKey());
+            }
+        }
+    }
+
+    // every employee field is NOT NULL, so a merge patch can change them but never remove them
+    private static String requiredText(Map.Entry<String, Object> change){
+        if (!(change.getValue() instanceof String)){
+            throw new BadRequestException(change.getKey()+" must be a non null string");
+        }
+        return (String) change.getValue();
+    }
+
+    private static Long toVersion(Object version){
+        if (version == null){
+            return null;
+        }
+        if (!(version instanceof Number)){
+            throw new BadRequestException("version must be a number");
+        }
+        return ((Number) version).longValue();
+    }
+}
@@ -0,0 +1,232 @@
+package com.toutsos.springboot.service;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeSearchPage;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over first name, last name and email for GET /api/employees/search.
+ * Every word is a term: a sorted term map answers prefix queries and a trigram index over the
+ * terms finds near misses (typos). A query matches the employees that match every query word,
+ * ranked by exact over prefix over fuzzy matches.
+ * Built from the table at startup and kept current by {@link EmployeeServiceImpl} on every write.
+ * Writes index after their commit, in no particular order, so an employee is only replaced by the same
+ * or a newer version of itself. Updates without a version (write-behind) always replace it.
+ */
+@Component
+public class EmployeeSearchIndex {
+
+    static final double EXACT_SCORE = 3.0;
+
+    // plus the share of the term the prefix covers, so "ang" ranks "angela" over "angelopoulos"
+    static final double PREFIX_SCORE = 1.0;
+
+    // Dice coefficient of the trigrams, one typo in a 7 letter word still scores about 0.5
+    static final double MIN_SIMILARITY = 0.4;
+
+    // shorter words have too few trigrams to tell a typo from a different word
+    static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, IndexedEmployee> employeesById = new HashMap<>();
+
+    private final TreeMap<String, Set<Long>> idsByTerm = new TreeMap<>();
+
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+
+    public void put(Employee employee) {
+        if (employee.getId() == null) {
+            return;
+        }
+        IndexedEmployee indexedEmployee = new IndexedEmployee(employee.toBuilder().build(), terms(employee));
+        lock.writeLock().lock();
+        try {
+            IndexedEmployee indexed = employeesById.get(employee.getId());
+            if (indexed != null && EmployeeEmailIndex.isOlder(employee.getVersion(), indexed.employee.getVersion())) {
+                return;
+            }
+            removeIndexed(employee.getId());
+            employeesById.put(employee.getId(), indexedEmployee);
+            for (String term : indexedEmployee.terms) {
+                idsByTerm.computeIfAbsent(term, this::addTrigrams).add(employee.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeIndexed(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return employeesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public EmployeeSearchPage search(String query, int page, int size) {
+        Set<String> queryTerms = new LinkedHashSet<>(tokens(query));
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Long, Double> termScores = match(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((id, score) -> score + termScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            List<Map.Entry<Long, Double>> ranked = scores == null ? Collections.emptyList() : new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+            // in long, a far page times a large size does not fit an int
+            long from = (long) page * size;
+            if (from >= ranked.size()) {
+                return new EmployeeSearchPage(Collections.emptyList(), page, size, ranked.size());
+            }
+            int to = (int) Math.min(ranked.size(), from + size);
+            List<Employee> content = new ArrayList<>(to - (int) from);
+            for (int i = (int) from; i < to; i++) {
+                content.add(employeesById.get(ranked.get(i).getKey()).employee.toBuilder().build());
+            }
+            return new EmployeeSearchPage(content, page, size, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // best score per employee for one query word
+    private Map<Long, Double> match(String queryTerm) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Set<Long>> term : idsByTerm.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, true).entrySet()) {
+            double score = term.getKey().length() == queryTerm.length()
+                    ? EXACT_SCORE
+                    : PREFIX_SCORE + (double) queryTerm.length() / term.getKey().length();
+            keepBest(scores, term.getValue(), score);
+        }
+        if (queryTerm.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> queryTrigrams = trigrams(queryTerm);
+            Map<String, Integer> sharedTrigrams = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                for (String term : termsByTrigram.getOrDefault(trigram, Collections.emptySet())) {
+                    sharedTrigrams.merge(term, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> term : sharedTrigrams.entrySet()) {
+                double similarity = 2.0 * term.getValue() / (queryTrigrams.size() + trigrams(term.getKey()).size());
+                if (similarity >= MIN_SIMILARITY) {
+                    keepBest(scores, idsByTerm.get(term.getKey()), similarity);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void keepBest(Map<Long, Double> scores, Set<Long> ids, double score) {
+        for (Long id : ids) {
+            scores.merge(id, score, Math::max);
+        }
+    }
+
+    private Set<Long> addTrigrams(String term) {
+        for (String trigram : trigrams(term)) {
+            termsByTrigram.computeIfAbsent(trigram, key -> new HashSet<>()).add(term);
+        }
+        return new HashSet<>();
+    }
+
+    private void removeIndexed(long id) {
+        IndexedEmployee indexedEmployee = employeesById.remove(id);
+        if (indexedEmployee == null) {
+            return;
+        }
+        for (String term : indexedEmployee.terms) {
+            Set<Long> ids = idsByTerm.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByTerm.remove(term);
+                for (String trigram : trigrams(term)) {
+                    Set<String> terms = termsByTrigram.get(trigram);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        termsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Set<String> terms(Employee employee) {
+        Set<String> terms = new HashSet<>();
+        terms.addAll(tokens(employee.getFirstName()));
+        terms.addAll(tokens(employee.getLastName()));
+        terms.addAll(tokens(employee.getEmail()));
+        return terms;
+    }
+
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // padded so the first and last letters count as much as the middle ones
+    static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static final class IndexedEmployee {
+
+        private final Employee employee;
+
+        private final Set<String> terms;
+
+        private IndexedEmployee(Employee employee, Set<String> terms) {
+            this.employee = employee;
+            this.terms = terms;
+        }
+    }
+}
@@ -1,18 +1,33 @@
 package com.toutsos.springboot.service;
 
 import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeJson;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.model.EmployeeSearchPage;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface EmployeeService {
 
 Employee saveEmployee(Employee employee);
+List<EmployeeBatchResult> saveEmployees(List<Employee> employees);
 List<Employee> getAllEmployees();
+EmployeePage getEmployeesPage(Long afterId, int limit);
+void forEachEmployee(Consumer<Employee> action);
 Optional<Employee> getEmployeeById(long id);
+Optional<EmployeeJson> getEmployeeJson(long id);
 
-Employee updateEmployee(Employee employee);
+Optional<Employee> updateEmployee(long id, Employee employee);
+Optional<Employee> patchEmployee(long id, Map<String, Object> patch);
 
-void deleteEmployee(long id);
+boolean deleteEmployee(long id);
+int deleteEmployees(Collection<Long> ids);
+List<Long> getEmployeeIdsByEmailDomain(String emailDomain);
+EmployeeSearchPage searchEmployees(String query, int page, int size);
 
 }
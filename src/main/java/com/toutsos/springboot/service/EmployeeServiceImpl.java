@@ -1,49 +1,528 @@
 package com.toutsos.springboot.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.changes.EmployeeChangeLog;
+import com.toutsos.springboot.exception.BadRequestException;
 import com.toutsos.springboot.exception.ResourceNotFoundException;
+import com.toutsos.springboot.execution.SingleFlight;
 import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.model.EmployeeJson;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.model.EmployeeSearchPage;
 import com.toutsos.springboot.repository.EmployeeRepository;
+import com.toutsos.springboot.writebehind.EmployeeUpdatesDroppedEvent;
+import com.toutsos.springboot.writebehind.EmployeeWriteBehind;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 @Service
-public class EmployeeServiceImpl  implements EmployeeService{
+@Profile("!reactive")
+public class EmployeeServiceImpl  implements EmployeeService, MeterBinder {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    static final String EMAIL_UNIQUE_KEY = "ux_employees_email";
+
+    //letters, digits, dots and dashes only, so the domain carries no LIKE wildcards
+    private static final Pattern EMAIL_DOMAIN = Pattern.compile("[A-Za-z0-9.-]+");
+
     private EmployeeRepository employeeRepository;
 
-    public EmployeeServiceImpl(EmployeeRepository employeeRepository) {
+    private EmployeeEmailIndex employeeEmailIndex;
+
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    private ObjectMapper objectMapper;
+
+    //concurrent lookups of the same id or email share one query, every waiter gets its own copy
+    private final SingleFlight<Long, Optional<Employee>> lookupsById = new SingleFlight<>(EmployeeServiceImpl::copy);
+
+    private final SingleFlight<String, Optional<Employee>> lookupsByEmail = new SingleFlight<>(EmployeeServiceImpl::copy);
+
+    // null unless employees.write-behind.enabled=true
+    private EmployeeWriteBehind writeBehind;
+
+    // null when employees.changes.enabled=false
+    private EmployeeChangeLog changeLog;
+
+    @Value("${employees.stream.fetch-size:500}")
+    private int streamFetchSize = 500;
+
+    @Value("${employees.batch.chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    public EmployeeServiceImpl(EmployeeRepository employeeRepository, EmployeeEmailIndex employeeEmailIndex,
+                               EmployeeSearchIndex employeeSearchIndex, ObjectMapper objectMapper) {
         this.employeeRepository = employeeRepository;
+        this.employeeEmailIndex = employeeEmailIndex;
+        this.employeeSearchIndex = employeeSearchIndex;
+        this.objectMapper = objectMapper;
+    }
+
+    @Autowired(required = false)
+    public void setWriteBehind(EmployeeWriteBehind writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    @Autowired(required = false)
+    public void setChangeLog(EmployeeChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    //Loads every employee into the email and search indexes in one pass once the application is up,
+    // until then the duplicate check keeps asking the database and search sees only new writes
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmIndexes() {
+        employeeRepository.streamAll(streamFetchSize, stored -> {
+            Employee employee = withPendingUpdate(stored);
+            employeeEmailIndex.put(employee.getId(), employee.getEmail(), employee.getVersion());
+            employeeSearchIndex.put(employee);
+        });
+        employeeEmailIndex.markWarm();
     }
 
     @Override
     public Employee saveEmployee(Employee employee) {
 
-        Optional<Employee> savedEmployee = employeeRepository.findByEmail(employee.getEmail());
-        if (savedEmployee.isPresent()){
-            throw new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail());
+        if (mightExist(employee.getEmail())){
+            Optional<Employee> savedEmployee = findByEmail(employee.getEmail());
+            if (savedEmployee.isPresent()){
+                throw new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail());
+            }
+        }
+        Employee savedEmployee;
+        try {
+            savedEmployee = recorded(() -> {
+                Employee inserted = employeeRepository.save(employee);
+                record(EmployeeChange.Type.CREATED, List.of(inserted.getId()));
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException e){
+            // a concurrent insert won the race, the unique key on email caught it
+            if (isDuplicateEmail(e)){
+                throw new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail(), e);
+            }
+            throw e;
+        }
+        index(savedEmployee);
+        return savedEmployee;
+    }
+
+    // a warm index answers "not there" on its own, anything else has to be confirmed by the database
+    private boolean mightExist(String email){
+        return !employeeEmailIndex.isWarm() || employeeEmailIndex.mightContain(email);
+    }
+
+    static boolean isDuplicateEmail(DataIntegrityViolationException e){
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(EMAIL_UNIQUE_KEY);
+    }
+
+    @Override
+    @Transactional
+    public List<EmployeeBatchResult> saveEmployees(List<Employee> employees) {
+        List<EmployeeBatchResult> results = new ArrayList<>(employees.size());
+        Set<String> batchEmails = new HashSet<>();
+        List<Long> insertedIds = new ArrayList<>(employees.size());
+        List<Employee> insertedEmployees = new ArrayList<>(employees.size());
+        int chunkSize = Math.max(1, batchChunkSize);
+        for (int from = 0; from < employees.size(); from += chunkSize){
+            List<Employee> chunk = employees.subList(from, Math.min(from + chunkSize, employees.size()));
+
+            Set<String> chunkEmails = new HashSet<>();
+            for (Employee employee : chunk){
+                if (employee.getEmail() != null && mightExist(employee.getEmail())){
+                    chunkEmails.add(employee.getEmail());
+                }
+            }
+            Set<String> existingEmails = new HashSet<>();
+            if (!chunkEmails.isEmpty()){
+                for (String email : employeeRepository.findExistingEmails(chunkEmails)){
+                    existingEmails.add(EmployeeEmailIndex.normalize(email));
+                }
+            }
+
+            List<Employee> toInsert = new ArrayList<>(chunk.size());
+            List<Integer> toInsertIndexes = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++){
+                Employee employee = chunk.get(i);
+                int index = from + i;
+                if (employee.getFirstName() == null || employee.getLastName() == null || employee.getEmail() == null){
+                    results.add(EmployeeBatchResult.invalid(index, employee, "firstName, lastName and email are required"));
+                } else if (existingEmails.contains(EmployeeEmailIndex.normalize(employee.getEmail()))
+                        || !batchEmails.add(EmployeeEmailIndex.normalize(employee.getEmail()))){
+                    results.add(EmployeeBatchResult.duplicate(index, employee));
+                } else {
+                    employee.setId(null);
+                    toInsert.add(employee);
+                    toInsertIndexes.add(results.size());
+                    results.add(null);
+                }
+            }
+
+            employeeRepository.insertAll(toInsert);
+            for (int i = 0; i < toInsert.size(); i++){
+                int resultIndex = toInsertIndexes.get(i);
+                Employee insertedEmployee = toInsert.get(i);
+                results.set(resultIndex, EmployeeBatchResult.created(resultIndex, insertedEmployee));
+                insertedIds.add(insertedEmployee.getId());
+                insertedEmployees.add(insertedEmployee);
+            }
         }
-        return employeeRepository.save(employee);
+        // last, the change log holds its sequence lock from here until the commit
+        record(EmployeeChange.Type.CREATED, insertedIds);
+        // the whole batch is one transaction, the indexes learn about it once it committed
+        AfterCommit.run(() -> insertedEmployees.forEach(this::putInIndexes));
+        return results;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll();
+        List<Employee> employees = employeeRepository.findAllDetached();
+        if (writeBehind != null){
+            employees.replaceAll(this::withPendingUpdate);
+        }
+        return employees;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EmployeePage getEmployeesPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // fetch one extra row to find out if there is a next page without a count query
+        List<Employee> employees = new ArrayList<>(employeeRepository.findDetachedByIdGreaterThan(
+                afterId == null ? 0L : afterId, PageRequest.of(0, pageSize + 1)));
+        if (writeBehind != null){
+            employees.replaceAll(this::withPendingUpdate);
+        }
+        if (employees.size() <= pageSize){
+            return new EmployeePage(employees, null);
+        }
+        List<Employee> content = employees.subList(0, pageSize);
+        return new EmployeePage(content, content.get(pageSize - 1).getId());
     }
 
+    // the cursor behind the stream needs an open connection until the last row is read
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachEmployee(Consumer<Employee> action) {
+        employeeRepository.streamAll(streamFetchSize, employee -> action.accept(withPendingUpdate(employee)));
+    }
+
+    //Not transactional itself, the lookup runs in the repository's read-only transaction. That way callers
+    // waiting for a coalesced lookup do not hold a connection of their own
     @Override
     public Optional<Employee> getEmployeeById(long id) {
-        return employeeRepository.findById(id);
+        Optional<Employee> employee;
+        if (!canCoalesce()) {
+            employee = employeeRepository.findDetachedById(id);
+        } else {
+            employee = lookupsById.execute(id, () -> employeeRepository.findDetachedById(id));
+        }
+        return employee.map(this::withPendingUpdate);
     }
 
+    // with write-behind, updates that are not in MySQL yet are part of what readers see
+    private Employee withPendingUpdate(Employee employee) {
+        return writeBehind == null ? employee : writeBehind.overlay(employee);
+    }
+
+    private Optional<Employee> findByEmail(String email) {
+        if (!canCoalesce()) {
+            return employeeRepository.findByEmail(email);
+        }
+        return lookupsByEmail.execute(EmployeeEmailIndex.normalize(email), () -> employeeRepository.findByEmail(email));
+    }
+
+    // a caller inside a read-write transaction may have changed the row, it has to see its own version
+    private static boolean canCoalesce() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private static Optional<Employee> copy(Optional<Employee> employee) {
+        return employee.map(found -> found.toBuilder().build());
+    }
+
+    //Serialized on every call, CachingEmployeeService keeps the bytes of hot employees
     @Override
-    public Employee updateEmployee(Employee updatedEmployee) {
-        return employeeRepository.save(updatedEmployee);
+    public Optional<EmployeeJson> getEmployeeJson(long id) {
+        return getEmployeeById(id).map(employee -> toJson(objectMapper, employee));
     }
 
+    static EmployeeJson toJson(ObjectMapper objectMapper, Employee employee) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(employee);
+            return new EmployeeJson(employee.getId(), EmployeeJson.etag(employee, bytes), bytes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Employee " + employee.getId() + " could not be serialized", e);
+        }
+    }
+
+    //One UPDATE statement, no SELECT before it. The affected row count tells
+    // unknown ids apart, existsById only runs to tell a stale version from a missing row.
+    // Without a version the update is unconditional, the last write wins, and the version it stored is read back.
+    // Not transactional itself: each statement runs in the repository's transaction, or in the change log's one
+    // that keeps the row locked until the version is read, and the write-behind path does not need a connection at all
     @Override
-    public void deleteEmployee(long id) {
-        employeeRepository.deleteById(id);
+    public Optional<Employee> updateEmployee(long id, Employee employee) {
+        // a PUT replaces every field, the columns are not null
+        if (employee.getFirstName() == null || employee.getLastName() == null || employee.getEmail() == null){
+            throw new BadRequestException("firstName, lastName and email are required");
+        }
+        if (writeBehind != null){
+            return updateEmployeeWriteBehind(id, employee);
+        }
+        Long storedVersion;
+        try {
+            storedVersion = recorded(() -> {
+                int rows = employeeRepository.updateById(id, employee.getFirstName(), employee.getLastName(),
+                        employee.getEmail(), employee.getVersion());
+                if (rows == 0){
+                    return null;
+                }
+                Long version = employee.getVersion() != null
+                        ? Long.valueOf(employee.getVersion() + 1)
+                        : employeeRepository.findVersionById(id).orElse(null);
+                record(EmployeeChange.Type.UPDATED, List.of(id));
+                return version;
+            });
+        } catch (DataIntegrityViolationException e){
+            if (isDuplicateEmail(e)){
+                throw new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail(), e);
+            }
+            throw e;
+        }
+        if (storedVersion == null){
+            if (employee.getVersion() != null && employeeRepository.existsById(id)){
+                throw new ObjectOptimisticLockingFailureException(Employee.class, id);
+            }
+            return Optional.empty();
+        }
+        Employee updatedEmployee = employee.toBuilder()
+                .id(id)
+                .version(storedVersion)
+                .build();
+        index(updatedEmployee);
+        return Optional.of(updatedEmployee);
+    }
+
+    //Acknowledged once the update is in the write-behind log, without reading the row when the
+    // email index knows the id. The version is not checked, the last update wins, and the response
+    // carries no version because the stored one changes when the update is written
+    private Optional<Employee> updateEmployeeWriteBehind(long id, Employee employee) {
+        boolean exists = (employeeEmailIndex.isWarm() && employeeEmailIndex.containsId(id)) || employeeRepository.existsById(id);
+        if (!exists){
+            return Optional.empty();
+        }
+        return Optional.of(acceptUpdate(employee.toBuilder().id(id).version(null).build()));
+    }
+
+    private Employee acceptUpdate(Employee updatedEmployee){
+        if (emailTakenByOther(updatedEmployee.getId(), updatedEmployee.getEmail())){
+            throw new ResourceNotFoundException("Employee already exists with given email "+updatedEmployee.getEmail());
+        }
+        writeBehind.accept(updatedEmployee);
+        index(updatedEmployee);
+        return updatedEmployee;
+    }
+
+    //A buffered update that lost its email to another employee before it was written was indexed when it
+    // was accepted. Indexes the row as MySQL holds it again, with any newer buffered update on top
+    @EventListener
+    public void onUpdatesDropped(EmployeeUpdatesDroppedEvent event) {
+        for (Long id : event.getIds()){
+            Optional<Employee> stored = employeeRepository.findById(id);
+            if (stored.isPresent()){
+                putInIndexes(withPendingUpdate(stored.get()));
+            } else {
+                employeeEmailIndex.remove(id);
+                employeeSearchIndex.remove(id);
+            }
+        }
+    }
+
+    private boolean emailTakenByOther(long id, String email){
+        Long owner = employeeEmailIndex.idOf(email);
+        if (employeeEmailIndex.isWarm() && (owner == null || owner == id)){
+            return false;
+        }
+        return findByEmail(email).filter(employee -> employee.getId() != id).isPresent();
+    }
+
+    //JSON Merge Patch (RFC 7396): only the supplied fields change and, with @DynamicUpdate,
+    // only their columns are written
+    @Override
+    @Transactional
+    public Optional<Employee> patchEmployee(long id, Map<String, Object> patch) {
+        if (writeBehind != null){
+            // patched on top of the buffered updates and buffered itself, so an older update cannot overwrite it
+            Optional<Employee> savedEmployee = getEmployeeById(id);
+            if (savedEmployee.isEmpty()){
+                return Optional.empty();
+            }
+            Employee employee = savedEmployee.get().toBuilder().build();
+            EmployeeMergePatch.apply(employee, patch);
+            return Optional.of(acceptUpdate(employee.toBuilder().version(null).build()));
+        }
+        Optional<Employee> savedEmployee = employeeRepository.findById(id);
+        if (savedEmployee.isEmpty()){
+            return Optional.empty();
+        }
+        Employee employee = savedEmployee.get();
+        EmployeeMergePatch.apply(employee, patch);
+        Employee patchedEmployee;
+        try {
+            patchedEmployee = employeeRepository.saveAndFlush(employee);
+            record(EmployeeChange.Type.UPDATED, List.of(id));
+        } catch (DataIntegrityViolationException e){
+            if (isDuplicateEmail(e)){
+                throw new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail(), e);
+            }
+            throw e;
+        }
+        index(patchedEmployee);
+        // the entity still carries the updatedAt it was loaded with, MySQL stamped a new one
+        return Optional.of(patchedEmployee.toBuilder().updatedAt(null).build());
+    }
+
+    //One DELETE statement, deleteById would load the entity first
+    @Override
+    public boolean deleteEmployee(long id) {
+        boolean deleted = recordedDelete(List.of(id), () -> employeeRepository.deleteRowById(id)) > 0;
+        forget(id);
+        return deleted;
+    }
+
+    //Set based delete in chunks of employees.batch.chunk-size ids, one statement per chunk.
+    // Not transactional itself: every chunk commits on its own, so a long offboarding run does not
+    // hold row locks on the whole list and a run that failed half way can simply be repeated
+    @Override
+    public int deleteEmployees(Collection<Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        int chunkSize = Math.max(1, batchChunkSize);
+        int deleted = 0;
+        for (int from = 0; from < distinctIds.size(); from += chunkSize){
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            deleted += recordedDelete(chunk, () -> employeeRepository.deleteRowsByIdIn(chunk));
+            chunk.forEach(this::forget);
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Long> getEmployeeIdsByEmailDomain(String emailDomain) {
+        if (emailDomain == null || !EMAIL_DOMAIN.matcher(emailDomain).matches()){
+            throw new BadRequestException("emailDomain must be a domain name such as example.com");
+        }
+        return employeeRepository.findIdsByEmailLike("%@" + emailDomain);
+    }
+
+    //A write and the changes it records commit together. Without the change log the write runs in the
+    // repository's own transaction as before
+    private <T> T recorded(Supplier<T> write) {
+        return changeLog == null ? write.get() : changeLog.inTransaction(write);
+    }
+
+    // the rows are read and locked before the delete, while they still exist, and recorded after it as the
+    // last statement, like every other write. Nothing is recorded for ids that had no row
+    private int recordedDelete(List<Long> ids, IntSupplier delete) {
+        if (changeLog == null){
+            return delete.getAsInt();
+        }
+        return changeLog.inTransaction(() -> {
+            List<Employee> deletedEmployees = changeLog.lock(ids);
+            int rows = delete.getAsInt();
+            if (rows > 0){
+                changeLog.recordDeleted(deletedEmployees);
+            }
+            return rows;
+        });
+    }
+
+    private void record(EmployeeChange.Type type, Collection<Long> ids) {
+        if (changeLog != null && !ids.isEmpty()){
+            changeLog.record(type, ids);
+        }
+    }
+
+    private void index(Employee employee) {
+        AfterCommit.run(() -> putInIndexes(employee));
+    }
+
+    // both indexes keep the newest version they saw, after commit callbacks of concurrent writes run in any order
+    private void putInIndexes(Employee employee) {
+        employeeEmailIndex.put(employee.getId(), employee.getEmail(), employee.getVersion());
+        employeeSearchIndex.put(employee);
+    }
+
+    // also for ids that did not exist, dropping nothing is harmless
+    private void forget(long id) {
+        AfterCommit.run(() -> {
+            if (writeBehind != null){
+                writeBehind.discard(id);
+            }
+            employeeEmailIndex.remove(id);
+            employeeSearchIndex.remove(id);
+        });
+    }
+
+    @Override
+    public EmployeeSearchPage searchEmployees(String query, int page, int size) {
+        return employeeSearchIndex.search(query, Math.max(0, page), Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE)));
+    }
+
+    public long getCoalescedLookups() {
+        return lookupsById.getCoalesced() + lookupsByEmail.getCoalesced();
+    }
+
+    // executed counts the queries that ran, coalesced the lookups that waited for one of them instead
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindLookupMeters(registry, "id", lookupsById);
+        bindLookupMeters(registry, "email", lookupsByEmail);
+    }
+
+    private static void bindLookupMeters(MeterRegistry registry, String lookup, SingleFlight<?, ?> singleFlight) {
+        FunctionCounter.builder("employee.lookups.executed", singleFlight, SingleFlight::getExecuted)
+                .description("Employee lookups that queried the database")
+                .tag("lookup", lookup)
+                .register(registry);
+        FunctionCounter.builder("employee.lookups.coalesced", singleFlight, SingleFlight::getCoalesced)
+                .description("Employee lookups served by a concurrent identical lookup")
+                .tag("lookup", lookup)
+                .register(registry);
     }
 }
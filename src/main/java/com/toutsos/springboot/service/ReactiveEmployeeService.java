@@ -0,0 +1,22 @@
+package com.toutsos.springboot.service;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeePage;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+public interface ReactiveEmployeeService {
+
+Mono<Employee> saveEmployee(Employee employee);
+Flux<EmployeeBatchResult> saveEmployees(Flux<Employee> employees);
+Flux<Employee> getAllEmployees();
+Mono<EmployeePage> getEmployeesPage(Long afterId, int limit);
+Mono<Employee> getEmployeeById(long id);
+Mono<Employee> updateEmployee(long id, Employee employee);
+Mono<Employee> patchEmployee(long id, Map<String, Object> patch);
+Mono<Boolean> deleteEmployee(long id);
+
+}
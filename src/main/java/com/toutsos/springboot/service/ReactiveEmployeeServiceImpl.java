@@ -0,0 +1,216 @@
+package com.toutsos.springboot.service;
+
+import com.toutsos.springboot.changes.ReactiveEmployeeChangeLog;
+import com.toutsos.springboot.exception.BadRequestException;
+import com.toutsos.springboot.exception.ResourceNotFoundException;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.repository.ReactiveEmployeeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.toutsos.springboot.service.EmployeeServiceImpl.MAX_PAGE_SIZE;
+
+/**
+ * Non blocking version of {@link EmployeeServiceImpl} for the reactive profile.
+ * Same rules (duplicate emails, keyset pages, versioned updates, merge patches),
+ * but every call returns at once and the rows are emitted as R2DBC reads them.
+ * Writes are recorded in the change log like on the servlet stack. The in-memory email and search indexes
+ * and write-behind are servlet only: this profile checks emails against MySQL and serves no search.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveEmployeeServiceImpl implements ReactiveEmployeeService {
+
+    private ReactiveEmployeeRepository employeeRepository;
+
+    // null when employees.changes.enabled=false
+    private ReactiveEmployeeChangeLog changeLog;
+
+    @Value("${employees.stream.fetch-size:500}")
+    private int streamFetchSize = 500;
+
+    @Value("${employees.batch.chunk-size:500}")
+    private int batchChunkSize = 500;
+
+    public ReactiveEmployeeServiceImpl(ReactiveEmployeeRepository employeeRepository) {
+        this.employeeRepository = employeeRepository;
+    }
+
+    @Autowired(required = false)
+    public void setChangeLog(ReactiveEmployeeChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    @Override
+    public Mono<Employee> saveEmployee(Employee employee) {
+        return employeeRepository.findByEmail(employee.getEmail())
+                .flatMap(savedEmployee -> Mono.<Employee>error(
+                        new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail())))
+                .switchIfEmpty(Mono.defer(() -> recorded(insert(employee)
+                        .flatMap(inserted -> record(EmployeeChange.Type.CREATED, List.of(inserted.getId())).thenReturn(inserted)))));
+    }
+
+    // a null id and version make Spring Data issue an INSERT whatever the client sent
+    private Mono<Employee> insert(Employee employee){
+        employee.setId(null);
+        employee.setVersion(null);
+        return employeeRepository.save(employee)
+                .onErrorMap(DataIntegrityViolationException.class, e -> duplicateEmail(employee, e));
+    }
+
+    private static Throwable duplicateEmail(Employee employee, DataIntegrityViolationException e){
+        if (EmployeeServiceImpl.isDuplicateEmail(e)){
+            return new ResourceNotFoundException("Employee already exists with given email "+employee.getEmail(), e);
+        }
+        return e;
+    }
+
+    //Reads the body in chunks, one duplicate check query per chunk. Results keep submission order.
+    // The inserted employees are recorded once, after the last chunk
+    @Override
+    @Transactional
+    public Flux<EmployeeBatchResult> saveEmployees(Flux<Employee> employees) {
+        Set<String> batchEmails = new HashSet<>();
+        List<Long> insertedIds = new ArrayList<>();
+        return employees.index()
+                .buffer(Math.max(1, batchChunkSize))
+                .concatMap(chunk -> saveChunk(chunk, batchEmails, insertedIds))
+                .concatWith(Mono.defer(() -> record(EmployeeChange.Type.CREATED, insertedIds)).then(Mono.<EmployeeBatchResult>empty()));
+    }
+
+    private Flux<EmployeeBatchResult> saveChunk(List<Tuple2<Long, Employee>> chunk, Set<String> batchEmails,
+                                                List<Long> insertedIds){
+        Set<String> chunkEmails = chunk.stream()
+                .map(entry -> entry.getT2().getEmail())
+                .filter(email -> email != null)
+                .collect(Collectors.toSet());
+        Mono<Set<String>> existingEmails = chunkEmails.isEmpty()
+                ? Mono.just(Collections.emptySet())
+                : employeeRepository.findExistingEmails(chunkEmails).map(EmployeeEmailIndex::normalize).collect(Collectors.toSet());
+        return existingEmails.flatMapMany(existing -> Flux.fromIterable(chunk).concatMap(entry -> {
+            int index = entry.getT1().intValue();
+            Employee employee = entry.getT2();
+            if (employee.getFirstName() == null || employee.getLastName() == null || employee.getEmail() == null){
+                return Mono.just(EmployeeBatchResult.invalid(index, employee, "firstName, lastName and email are required"));
+            }
+            if (existing.contains(EmployeeEmailIndex.normalize(employee.getEmail()))
+                    || !batchEmails.add(EmployeeEmailIndex.normalize(employee.getEmail()))){
+                return Mono.just(EmployeeBatchResult.duplicate(index, employee));
+            }
+            return insert(employee).map(insertedEmployee -> {
+                insertedIds.add(insertedEmployee.getId());
+                return EmployeeBatchResult.created(index, insertedEmployee);
+            });
+        }));
+    }
+
+    // limitRate keeps at most one fetch worth of rows requested ahead of a slow client
+    @Override
+    public Flux<Employee> getAllEmployees() {
+        return employeeRepository.findAll().limitRate(Math.max(1, streamFetchSize));
+    }
+
+    @Override
+    public Mono<EmployeePage> getEmployeesPage(Long afterId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // fetch one extra row to find out if there is a next page without a count query
+        return employeeRepository.findPageAfter(afterId == null ? 0L : afterId, pageSize + 1)
+                .collectList()
+                .map(employees -> {
+                    if (employees.size() <= pageSize){
+                        return new EmployeePage(employees, null);
+                    }
+                    List<Employee> content = employees.subList(0, pageSize);
+                    return new EmployeePage(content, content.get(pageSize - 1).getId());
+                });
+    }
+
+    @Override
+    public Mono<Employee> getEmployeeById(long id) {
+        return employeeRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Employee> updateEmployee(long id, Employee employee) {
+        // a PUT replaces every field, the columns are not null
+        if (employee.getFirstName() == null || employee.getLastName() == null || employee.getEmail() == null){
+            return Mono.error(new BadRequestException("firstName, lastName and email are required"));
+        }
+        Long version = employee.getVersion();
+        return recorded(employeeRepository.updateById(id, employee.getFirstName(), employee.getLastName(), employee.getEmail(), version)
+                .onErrorMap(DataIntegrityViolationException.class, e -> duplicateEmail(employee, e))
+                .flatMap(updated -> {
+                    if (updated > 0){
+                        // an unconditional update reads back the version it stored
+                        Mono<Long> storedVersion = version == null ? employeeRepository.findVersionById(id) : Mono.just(version + 1);
+                        return storedVersion.flatMap(stored -> record(EmployeeChange.Type.UPDATED, List.of(id))
+                                .thenReturn(employee.toBuilder().id(id).version(stored).build()));
+                    }
+                    if (version == null){
+                        return Mono.empty();
+                    }
+                    // nothing matched: either the employee is gone or someone else updated it first
+                    return employeeRepository.existsById(id)
+                            .flatMap(exists -> exists
+                                    ? Mono.error(new ObjectOptimisticLockingFailureException(Employee.class, id))
+                                    : Mono.empty());
+                }));
+    }
+
+    //Spring Data R2DBC writes every column, the version in the WHERE clause still guards the row
+    @Override
+    public Mono<Employee> patchEmployee(long id, Map<String, Object> patch) {
+        return recorded(employeeRepository.findById(id)
+                .flatMap(employee -> {
+                    EmployeeMergePatch.apply(employee, patch);
+                    return employeeRepository.save(employee)
+                            .onErrorMap(DataIntegrityViolationException.class, e -> duplicateEmail(employee, e));
+                })
+                .flatMap(patchedEmployee -> record(EmployeeChange.Type.UPDATED, List.of(id)).thenReturn(patchedEmployee)));
+    }
+
+    //The row is read and locked before the delete and recorded after it, only when it was there
+    @Override
+    public Mono<Boolean> deleteEmployee(long id) {
+        if (changeLog == null){
+            return employeeRepository.deleteRowById(id).map(deletedRows -> deletedRows > 0);
+        }
+        return changeLog.inTransaction(changeLog.lock(List.of(id))
+                .flatMap(deletedEmployees -> employeeRepository.deleteRowById(id)
+                        .flatMap(deletedRows -> deletedRows > 0
+                                ? changeLog.recordDeleted(deletedEmployees).thenReturn(true)
+                                : Mono.just(false))));
+    }
+
+    //A write and the changes it records commit together. Without the change log the write runs as before
+    private <T> Mono<T> recorded(Mono<T> write) {
+        return changeLog == null ? write : changeLog.inTransaction(write);
+    }
+
+    private Mono<Integer> record(EmployeeChange.Type type, Collection<Long> ids) {
+        if (changeLog == null || ids.isEmpty()){
+            return Mono.just(0);
+        }
+        return changeLog.record(type, ids);
+    }
+}
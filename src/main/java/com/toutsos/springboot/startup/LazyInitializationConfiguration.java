@@ -0,0 +1,22 @@
+package com.toutsos.springboot.startup;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * spring.main.lazy-initialization=true (the faststart profile): beans are created on first use
+ * instead of during the refresh. Meter binders stay eager, otherwise the cache, pool and
+ * db-call gauges would only appear after the first request that happens to touch them.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.main.lazy-initialization", havingValue = "true")
+public class LazyInitializationConfiguration {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerMeterBinders() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MeterBinder.class);
+    }
+}
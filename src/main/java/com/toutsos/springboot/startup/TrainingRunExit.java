@@ -0,0 +1,22 @@
+package com.toutsos.springboot.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * employees.startup.exit-on-ready=true: shuts the application down as soon as it is ready.
+ * Used by the cds build profile, whose training run records the classes loaded during startup
+ * in a class data sharing archive that is written when the JVM exits.
+ */
+@Component
+@ConditionalOnProperty(name = "employees.startup.exit-on-ready", havingValue = "true")
+public class TrainingRunExit implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
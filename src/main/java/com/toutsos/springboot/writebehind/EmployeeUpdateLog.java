@@ -0,0 +1,276 @@
+package com.toutsos.springboot.writebehind;
+
+import com.toutsos.springboot.model.Employee;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local append log of accepted employee updates. An update is written to the current segment and
+ * fsynced before it is acknowledged, concurrent appends share one fsync. A flush seals the current
+ * segment and starts a new one, sealed segments are deleted once their updates are in MySQL.
+ * A record is its length, a CRC32 of the payload and the payload (id, first name, last name, email).
+ * A record torn by a crash fails the length or checksum test and ends the replay of its segment.
+ */
+public class EmployeeUpdateLog implements Closeable {
+
+    private static final String PREFIX = "employee-updates-";
+
+    private static final String SUFFIX = ".log";
+
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+
+    private final Object syncLock = new Object();
+
+    private long nextSegment;
+
+    private Segment current;
+
+    public EmployeeUpdateLog(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Path> existing = segments();
+        nextSegment = existing.isEmpty() ? 1 : sequence(existing.get(existing.size() - 1)) + 1;
+        current = openSegment();
+    }
+
+    //Returns once the update is on disk
+    public void append(Employee update) {
+        sync(write(update));
+    }
+
+    //Writes the update without waiting for the disk, pass the position to sync before acknowledging it
+    public Position write(Employee update) {
+        ByteBuffer record = encode(update);
+        Segment segment;
+        long end;
+        synchronized (this) {
+            segment = current;
+            try {
+                while (record.hasRemaining()) {
+                    segment.channel.write(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            end = segment.written += record.capacity();
+        }
+        return new Position(segment, end);
+    }
+
+    // the first waiter forces everything written so far, the ones behind it find their record already synced
+    public void sync(Position position) {
+        Segment segment = position.segment;
+        synchronized (syncLock) {
+            if (segment.synced >= position.end) {
+                return;
+            }
+            long written = segment.written;
+            try {
+                segment.channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segment.synced = written;
+        }
+    }
+
+    //Closes the current segment and starts a new one. Returns every segment before the new one,
+    // their updates have all been handed over and the files can go once those are flushed
+    public synchronized List<Path> seal() {
+        Segment sealed = current;
+        synchronized (syncLock) {
+            try {
+                sealed.channel.force(false);
+                sealed.channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sealed.synced = sealed.written;
+        }
+        current = openSegment();
+        return segments().stream()
+                .filter(segment -> !segment.equals(current.path))
+                .collect(Collectors.toList());
+    }
+
+    //Reads every segment in the order the updates were appended
+    public void replay(Consumer<Employee> action) {
+        for (Path segment : segments()) {
+            try {
+                ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+                while (records.remaining() >= HEADER_BYTES) {
+                    int length = records.getInt();
+                    int checksum = records.getInt();
+                    if (length <= 0 || length > records.remaining()) {
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    records.get(payload);
+                    if (checksum(payload) != checksum) {
+                        break;
+                    }
+                    action.accept(decode(payload));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    //Replaces sealed segments by one that holds only the given updates, after a flush wrote the others. It
+    // takes the place of the last sealed segment, so it still replays before the segments written since.
+    // A crash before the older segments are deleted replays them as well, the given updates still win
+    public void rewrite(List<Path> sealed, List<Employee> updates) {
+        if (sealed.isEmpty()) {
+            return;
+        }
+        Path last = sealed.get(sealed.size() - 1);
+        Path rewritten = last.resolveSibling(last.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(rewritten, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                for (Employee update : updates) {
+                    ByteBuffer record = encode(update);
+                    while (record.hasRemaining()) {
+                        channel.write(record);
+                    }
+                }
+                channel.force(false);
+            }
+            Files.move(rewritten, last, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delete(sealed.subList(0, sealed.size() - 1));
+    }
+
+    public void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        synchronized (syncLock) {
+            current.channel.force(false);
+            current.channel.close();
+        }
+    }
+
+    private Segment openSegment() {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, nextSegment++, SUFFIX));
+        try {
+            return new Segment(path, FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    static ByteBuffer encode(Employee update) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream payload = new DataOutputStream(bytes)) {
+            payload.writeLong(update.getId());
+            payload.writeUTF(update.getFirstName());
+            payload.writeUTF(update.getLastName());
+            payload.writeUTF(update.getEmail());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        return record;
+    }
+
+    private static Employee decode(byte[] payload) throws IOException {
+        try (DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload))) {
+            return Employee.builder()
+                    .id(record.readLong())
+                    .firstName(record.readUTF())
+                    .lastName(record.readUTF())
+                    .email(record.readUTF())
+                    .build();
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    public static final class Position {
+
+        private final Segment segment;
+
+        private final long end;
+
+        private Position(Segment segment, long end) {
+            this.segment = segment;
+            this.end = end;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private volatile long written;
+
+        private long synced;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.toutsos.springboot.writebehind;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+//Published after buffered updates were dropped because their email was taken in the meantime. They were
+// indexed when they were accepted, the indexes go back to what MySQL holds for these ids
+@Getter
+@AllArgsConstructor
+public class EmployeeUpdatesDroppedEvent {
+
+    private final Collection<Long> ids;
+}
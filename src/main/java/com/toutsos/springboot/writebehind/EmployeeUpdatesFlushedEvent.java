@@ -0,0 +1,14 @@
+package com.toutsos.springboot.writebehind;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+
+//Published after buffered updates were written to MySQL, caches drop what they hold for these ids
+@Getter
+@AllArgsConstructor
+public class EmployeeUpdatesFlushedEvent {
+
+    private final Collection<Long> ids;
+}
@@ -0,0 +1,364 @@
+package com.toutsos.springboot.writebehind;
+
+import com.toutsos.springboot.changes.EmployeeChangeLog;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * employees.write-behind.enabled=true: PUT /api/employees/{id} is acknowledged once the update is in the
+ * local {@link EmployeeUpdateLog}. Updates are merged per id (the last one wins, versions are not checked)
+ * and written to MySQL in batched transactions every flush interval, or sooner when flush-threshold ids
+ * are waiting. Reads overlay the updates that are not in MySQL yet. After a crash the log is replayed on
+ * startup, the log is local to the instance, so every instance needs its own directory.
+ */
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "employees.write-behind.enabled", havingValue = "true")
+public class EmployeeWriteBehind implements MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeWriteBehind.class);
+
+    private final EmployeeUpdateLog updateLog;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int flushThreshold;
+
+    private final int batchSize;
+
+    // null when employees.changes.enabled=false
+    private EmployeeChangeLog changeLog;
+
+    // last accepted update per id, waiting for the next flush. Guarded by this, like everything below
+    private Map<Long, Employee> pending = new HashMap<>();
+
+    // the updates the running flush is writing, still overlaid until they are committed
+    private Map<Long, Employee> flushing = Collections.emptyMap();
+
+    private long oldestPendingNanos;
+
+    private long oldestFlushingNanos;
+
+    // updates at the head of the running flush that are committed or dropped, a failed flush re-queues
+    // only the rest. Guarded by flushLock
+    private int written;
+
+    private final Object flushLock = new Object();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failedFlushes = new LongAdder();
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "employee-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public EmployeeWriteBehind(EmployeeRepository employeeRepository, PlatformTransactionManager transactionManager,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${employees.write-behind.directory:write-behind}") String directory,
+                               @Value("${employees.write-behind.flush-interval:1s}") Duration flushInterval,
+                               @Value("${employees.write-behind.flush-threshold:1000}") int flushThreshold,
+                               @Value("${employees.write-behind.batch-size:500}") int batchSize) {
+        this(new EmployeeUpdateLog(Paths.get(directory)), employeeRepository, transactionManager, eventPublisher,
+                flushThreshold, batchSize);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    EmployeeWriteBehind(EmployeeUpdateLog updateLog, EmployeeRepository employeeRepository,
+                        PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                        int flushThreshold, int batchSize) {
+        this.updateLog = updateLog;
+        this.employeeRepository = employeeRepository;
+        this.eventPublisher = eventPublisher;
+        this.flushThreshold = flushThreshold;
+        this.batchSize = Math.max(1, batchSize);
+        // a flush never joins the transaction of the request that triggered it
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        replay();
+    }
+
+    @Autowired(required = false)
+    public void setChangeLog(EmployeeChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    // updates acknowledged before a crash or shutdown are pending again, the first flush writes them
+    private void replay() {
+        updateLog.replay(update -> pending.put(update.getId(), update));
+        if (pending.isEmpty()) {
+            updateLog.delete(updateLog.seal());
+            return;
+        }
+        oldestPendingNanos = System.nanoTime();
+        log.info("Replayed {} pending employee updates from the write-behind log", pending.size());
+    }
+
+    //Durable once this returns, MySQL follows with a later flush
+    public void accept(Employee update) {
+        Employee copy = update.toBuilder().version(null).build();
+        EmployeeUpdateLog.Position position;
+        boolean full;
+        synchronized (this) {
+            // written and merged under one lock, so the log and the pending map agree on the last update per id
+            position = updateLog.write(copy);
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pending.put(copy.getId(), copy);
+            full = pending.size() >= flushThreshold;
+        }
+        updateLog.sync(position);
+        accepted.increment();
+        if (full && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    //The persisted employee with the fields of an update that is not in MySQL yet. Without a version, the
+    // stored one changes when the update is written, like the response to the buffered update itself
+    public Employee overlay(Employee persisted) {
+        Employee update;
+        synchronized (this) {
+            update = pending.get(persisted.getId());
+            if (update == null) {
+                update = flushing.get(persisted.getId());
+            }
+        }
+        if (update == null) {
+            return persisted;
+        }
+        return persisted.toBuilder()
+                .firstName(update.getFirstName())
+                .lastName(update.getLastName())
+                .email(update.getEmail())
+                .version(null)
+                .build();
+    }
+
+    //For a deleted employee. A flush already writing it updates no row
+    public synchronized void discard(long id) {
+        pending.remove(id);
+    }
+
+    //Writes everything accepted so far, batch by batch. When a batch fails, the batches before it stay
+    // committed and only the updates from the failed batch on stay pending, unless an update accepted
+    // meanwhile replaced them. The log keeps only those too
+    public void flush() {
+        synchronized (flushLock) {
+            flushRequested.set(false);
+            List<Employee> updates;
+            List<Path> segments;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                flushing = pending;
+                oldestFlushingNanos = oldestPendingNanos;
+                pending = new HashMap<>();
+                updates = new ArrayList<>(flushing.values());
+                segments = updateLog.seal();
+            }
+            List<Long> droppedIds = new ArrayList<>();
+            try {
+                write(updates, droppedIds);
+            } catch (RuntimeException e) {
+                List<Employee> unwritten = updates.subList(written, updates.size());
+                synchronized (this) {
+                    for (Employee update : unwritten) {
+                        pending.putIfAbsent(update.getId(), update);
+                    }
+                    oldestPendingNanos = oldestFlushingNanos;
+                    flushing = Collections.emptyMap();
+                }
+                failedFlushes.increment();
+                published(updates.subList(0, written), droppedIds);
+                if (written > 0) {
+                    try {
+                        updateLog.rewrite(segments, unwritten);
+                    } catch (RuntimeException rewriteFailure) {
+                        // the segments stay as they are, a replay writes the committed updates once more
+                        e.addSuppressed(rewriteFailure);
+                    }
+                }
+                throw e;
+            }
+            synchronized (this) {
+                flushing = Collections.emptyMap();
+            }
+            published(updates, droppedIds);
+            updateLog.delete(segments);
+        }
+    }
+
+    // after the written updates are no longer overlaid, so reads of these ids see what MySQL holds
+    private void published(List<Employee> writtenUpdates, List<Long> droppedIds) {
+        if (writtenUpdates.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(writtenUpdates.size());
+        for (Employee update : writtenUpdates) {
+            ids.add(update.getId());
+        }
+        eventPublisher.publishEvent(new EmployeeUpdatesFlushedEvent(ids));
+        if (!droppedIds.isEmpty()) {
+            eventPublisher.publishEvent(new EmployeeUpdatesDroppedEvent(droppedIds));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Writing buffered employee updates failed, retrying with the next flush", e);
+        }
+    }
+
+    private void write(List<Employee> updates, List<Long> droppedIds) {
+        written = 0;
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            List<Employee> batch = updates.subList(from, Math.min(from + batchSize, updates.size()));
+            try {
+                count(transactionTemplate.execute(status -> updateAll(batch)));
+                written += batch.size();
+            } catch (DataIntegrityViolationException e) {
+                writeOneByOne(batch, droppedIds);
+            }
+        }
+    }
+
+    // an email taken in the meantime fails the whole batch, retrying row by row keeps the others
+    private void writeOneByOne(List<Employee> batch, List<Long> droppedIds) {
+        for (Employee update : batch) {
+            try {
+                count(transactionTemplate.execute(status -> updateAll(List.of(update))));
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                droppedIds.add(update.getId());
+                log.warn("Dropped the buffered update of employee {}: {}", update.getId(), e.getMostSpecificCause().getMessage());
+            }
+            written++;
+        }
+    }
+
+    // the changes are recorded when the updates reach MySQL, not when they are acknowledged
+    private int[] updateAll(List<Employee> batch) {
+        int[] updatedRows = employeeRepository.updateAll(batch);
+        if (changeLog != null) {
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (Employee update : batch) {
+                ids.add(update.getId());
+            }
+            changeLog.record(EmployeeChange.Type.UPDATED, ids);
+        }
+        return updatedRows;
+    }
+
+    // 0 means the employee was deleted before its update was written
+    private void count(int[] updatedRows) {
+        for (int rows : updatedRows) {
+            if (rows == 0) {
+                dropped.increment();
+            } else {
+                flushed.increment();
+            }
+        }
+    }
+
+    public synchronized int getPending() {
+        return pending.size() + flushing.size();
+    }
+
+    //Age of the oldest update that is not in MySQL yet
+    public synchronized Duration getLag() {
+        if (!flushing.isEmpty()) {
+            return Duration.ofNanos(System.nanoTime() - oldestFlushingNanos);
+        }
+        if (!pending.isEmpty()) {
+            return Duration.ofNanos(System.nanoTime() - oldestPendingNanos);
+        }
+        return Duration.ZERO;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("employee.write-behind.pending", this, EmployeeWriteBehind::getPending)
+                .description("Employees with updates that are not in MySQL yet")
+                .register(registry);
+        Gauge.builder("employee.write-behind.lag", this, writeBehind -> writeBehind.getLag().toMillis() / 1000.0)
+                .description("Age of the oldest update that is not in MySQL yet")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("employee.write-behind.accepted", accepted, LongAdder::sum)
+                .description("Updates acknowledged after landing in the write-behind log")
+                .register(registry);
+        FunctionCounter.builder("employee.write-behind.flushed", flushed, LongAdder::sum)
+                .description("Merged updates written to MySQL")
+                .register(registry);
+        FunctionCounter.builder("employee.write-behind.dropped", dropped, LongAdder::sum)
+                .description("Merged updates that could not be written, deleted employee or duplicate email")
+                .register(registry);
+        FunctionCounter.builder("employee.write-behind.flush-failures", failedFlushes, LongAdder::sum)
+                .description("Flushes that failed and were retried")
+                .register(registry);
+    }
+
+    // last flush on shutdown, what it cannot write is replayed on the next start
+    @Override
+    public void destroy() throws Exception {
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flushQuietly();
+        updateLog.close();
+    }
+}
@@ -0,0 +1,10 @@
+-- Baseline: the employees table exactly as Hibernate (ddl-auto=update) created it before Flyway took over.
+-- Databases that already have it are baselined at this version (spring.flyway.baseline-on-migrate) and get
+-- everything added since from the following migrations
+create table if not exists employees (
+    id bigint not null auto_increment,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,2 @@
+-- optimistic locking (@Version on Employee), existing rows start at version 0
+alter table employees add column version bigint default 0 not null;
@@ -0,0 +1,3 @@
+-- one employee per email, the duplicate check of saveEmployee relies on it under concurrent inserts.
+-- A baselined database with duplicate emails fails here until they are merged or removed
+alter table employees add constraint ux_employees_email unique (email);
@@ -0,0 +1,2 @@
+-- findByJPQL, findByJPQLNamedParams, findByNativeSQL and findByNativeSQLNamedParams filter on both names
+create index ix_employees_last_name_first_name on employees (last_name, first_name);
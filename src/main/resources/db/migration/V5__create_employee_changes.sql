@@ -0,0 +1,23 @@
+-- Transactional outbox: every write through EmployeeServiceImpl adds the changed employees here, in the same
+-- transaction, as they are after the write (before it, for deletes). sequence orders the changes for consumers
+create table employee_changes (
+    sequence bigint not null,
+    change_type varchar(16) not null,
+    changed_at timestamp(3) not null default current_timestamp(3),
+    employee_id bigint not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    version bigint not null,
+    primary key (sequence)
+);
+-- retention purge
+create index ix_employee_changes_changed_at on employee_changes (changed_at);
+-- Hands out the sequences. Unlike auto_increment, the row lock is held until the writing transaction commits
+-- and a rollback takes its sequences back, so sequences become visible in commit order and without gaps
+create table employee_change_sequence (
+    id tinyint not null,
+    value bigint not null,
+    primary key (id)
+);
+insert into employee_change_sequence (id, value) values (1, 0);
@@ -0,0 +1,11 @@
+-- Incremental sync (GET /api/employees?modifiedSince=) pages on change_sequence, the outbox sequence of the
+-- employee's last change. It is set by the transaction that records the change, under the same sequence lock,
+-- so it becomes visible in commit order like the outbox. Existing rows keep 0 and come with the first full copy.
+-- The secondary index carries the primary key, so it serves the (change_sequence, id) watermark on its own.
+-- updated_at is informational: MySQL stamps every insert and update, existing rows get the migration time
+alter table employees
+    add column updated_at timestamp(3) not null default current_timestamp(3) on update current_timestamp(3),
+    add column change_sequence bigint default 0 not null,
+    add index ix_employees_change_sequence (change_sequence);
+-- deletes are served from the DELETED rows of the outbox in the same sequence order
+create index ix_employee_changes_type_sequence on employee_changes (change_type, sequence);
@@ -0,0 +1,158 @@
+package com.toutsos.springboot.changes;
+
+import com.toutsos.springboot.exception.GoneException;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.model.EmployeeChangePage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeChangePublisherTests {
+
+    @Mock
+    private EmployeeChangeLog changeLog;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup(){
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .version(0L)
+                .build();
+    }
+
+    @DisplayName("JUnit test for moving the watermark to the newest committed change")
+    @Test
+    public void givenNewChanges_whenPublish_thenWatermarkIsLastSequence(){
+        //given - precondition or setup
+        given(changeLog.lastSequence()).willReturn(3L, 9L);
+        EmployeeChangePublisher publisher = create();
+
+        //when - action or the behaviour that we are going to test
+        publisher.publish();
+
+        //then - verify the output
+        assertThat(publisher.getPublished()).isEqualTo(9L);
+    }
+
+    @DisplayName("JUnit test for publishing while a slow stream is still being written")
+    @Test
+    public void givenSlowSubscriber_whenPublish_thenWatermarkStillMoves() throws Exception {
+        //given - precondition or setup
+        given(changeLog.lastSequence()).willReturn(0L, 5L, 6L);
+        CountDownLatch release = new CountDownLatch(1);
+        given(changeLog.readAfter(anyLong(), anyLong(), anyInt())).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        EmployeeChangePublisher publisher = create();
+        publisher.subscribe(0L);
+        publisher.publish();
+        verify(changeLog, timeout(1000)).readAfter(0L, 5L, 500);
+
+        //when - action or the behaviour that we are going to test
+        publisher.publish();
+
+        //then - verify the output
+        assertThat(publisher.getPublished()).isEqualTo(6L);
+        release.countDown();
+        publisher.destroy();
+    }
+
+    @DisplayName("JUnit test for reading only published changes")
+    @Test
+    public void givenPublishedChanges_whenRead_thenReturnThemUpToWatermark(){
+        //given - precondition or setup
+        given(changeLog.lastSequence()).willReturn(7L);
+        EmployeeChangePublisher publisher = create();
+        given(changeLog.firstSequence()).willReturn(1L);
+        given(changeLog.readAfter(5L, 7L, EmployeeChangePublisher.MAX_PAGE_SIZE)).willReturn(List.of(change(6), change(7)));
+
+        //when - action or the behaviour that we are going to test
+        EmployeeChangePage page = publisher.read(5L, 5000);
+
+        //then - verify the output
+        assertThat(page.getContent()).extracting(EmployeeChange::getSequence).containsExactly(6L, 7L);
+        assertThat(page.getNext()).isEqualTo(7L);
+    }
+
+    @DisplayName("JUnit test for reading when nothing changed")
+    @Test
+    public void givenNoNewChanges_whenRead_thenNextIsSince(){
+        //given - precondition or setup
+        given(changeLog.lastSequence()).willReturn(7L);
+        EmployeeChangePublisher publisher = create();
+        given(changeLog.firstSequence()).willReturn(1L);
+        given(changeLog.readAfter(7L, 7L, 100)).willReturn(List.of());
+
+        //when - action or the behaviour that we are going to test
+        EmployeeChangePage page = publisher.read(7L, 100);
+
+        //then - verify the output
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getNext()).isEqualTo(7L);
+    }
+
+    @DisplayName("JUnit test for reading after changes that were already purged")
+    @Test
+    public void givenPurgedChanges_whenRead_thenThrowsGoneException(){
+        //given - precondition or setup
+        given(changeLog.lastSequence()).willReturn(90L);
+        EmployeeChangePublisher publisher = create();
+        given(changeLog.firstSequence()).willReturn(50L);
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(GoneException.class, () -> publisher.read(10L, 100));
+
+        //then - verify the output
+        verify(changeLog, never()).readAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    @DisplayName("JUnit test for reconnecting a stream after the changes it missed were purged")
+    @Test
+    public void givenPurgedChanges_whenSubscribe_thenThrowsGoneException(){
+        //given - precondition or setup
+        given(changeLog.lastSequence()).willReturn(90L);
+        EmployeeChangePublisher publisher = create();
+        given(changeLog.firstSequence()).willReturn(50L);
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(GoneException.class, () -> publisher.subscribe(10L));
+
+        //then - verify the output
+        assertThat(publisher.getSubscribers()).isZero();
+        verify(changeLog, never()).readAfter(anyLong(), anyLong(), anyInt());
+    }
+
+    private EmployeeChangePublisher create(){
+        return new EmployeeChangePublisher(changeLog, 500, Duration.ofDays(7), Duration.ofMinutes(30), 10);
+    }
+
+    private EmployeeChange change(long sequence){
+        return new EmployeeChange(sequence, EmployeeChange.Type.UPDATED, Instant.now(), employee);
+    }
+}
@@ -1,29 +1,47 @@
 package com.toutsos.springboot.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.changes.EmployeeChangePublisher;
+import com.toutsos.springboot.changes.EmployeeSync;
+import com.toutsos.springboot.exception.GoneException;
 import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeBulkDelete;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.model.EmployeeChangePage;
+import com.toutsos.springboot.model.EmployeeJson;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.model.EmployeeSearchPage;
+import com.toutsos.springboot.model.EmployeeSyncEntry;
+import com.toutsos.springboot.model.EmployeeSyncPage;
 import com.toutsos.springboot.service.EmployeeService;
 import org.hamcrest.CoreMatchers;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.BDDMockito.given;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 
 @WebMvcTest
@@ -35,6 +53,12 @@ public class EmployeeControllerTest {
     @MockBean
     private EmployeeService employeeService;
 
+    @MockBean
+    private EmployeeChangePublisher changePublisher;
+
+    @MockBean
+    private EmployeeSync employeeSync;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -95,7 +119,8 @@ public class EmployeeControllerTest {
                 .email("angelos.toutsios@gmail.com")
                 .build();
 
-        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(employee));
+        given(employeeService.getEmployeeJson(employeeId)).willReturn(Optional.of(
+                new EmployeeJson(employeeId, "\"1-0\"", objectMapper.writeValueAsBytes(employee))));
 
         //when - action or the behaviour that we are going to test
         ResultActions response = mockMvc.perform(get("/api/employees/{id}",employeeId));
@@ -105,7 +130,26 @@ public class EmployeeControllerTest {
                 .andDo(MockMvcResultHandlers.print())
                 .andExpect(MockMvcResultMatchers.jsonPath("$.firstName", CoreMatchers.is(employee.getFirstName())))
                 .andExpect(MockMvcResultMatchers.jsonPath("$.lastName", CoreMatchers.is(employee.getLastName())))
-                .andExpect(MockMvcResultMatchers.jsonPath("$.email", CoreMatchers.is(employee.getEmail())));
+                .andExpect(MockMvcResultMatchers.jsonPath("$.email", CoreMatchers.is(employee.getEmail())))
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "\"1-0\""));
+    }
+
+    //JUnit for get employee by id REST API with a matching If-None-Match
+    @Test
+    public void givenMatchingETag_whenGetEmployeeById_thenReturnNotModified() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeService.getEmployeeJson(employeeId)).willReturn(Optional.of(
+                new EmployeeJson(employeeId, "\"1-3\"", "{\"id\":1}".getBytes())));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/{id}",employeeId)
+                .header("If-None-Match", "\"1-3\""));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.content().string(""));
     }
 
     //ngeative scenario
@@ -120,7 +164,7 @@ public class EmployeeControllerTest {
                 .email("angelos.toutsios@gmail.com")
                 .build();
 
-        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.empty());
+        given(employeeService.getEmployeeJson(employeeId)).willReturn(Optional.empty());
 
         //when - action or the behaviour that we are going to test
         ResultActions response = mockMvc.perform(get("/api/employees/{id}",employeeId));
@@ -149,8 +193,8 @@ public class EmployeeControllerTest {
                 .email("angelos.toutsios2@gmail.com")
                 .build();
 
-        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.of(savedEmployee));
-        given(employeeService.updateEmployee(any(Employee.class))).willAnswer(invocationOnMock -> invocationOnMock.getArgument(0));
+        given(employeeService.updateEmployee(eq(employeeId), any(Employee.class)))
+                .willAnswer(invocationOnMock -> Optional.of(invocationOnMock.getArgument(1)));
 
         //when - action or the behaviour that we are going to test
         ResultActions response = mockMvc.perform(put("/api/employees/{id}",employeeId)
@@ -183,7 +227,7 @@ public class EmployeeControllerTest {
                 .email("angelos.toutsios2@gmail.com")
                 .build();
 
-        given(employeeService.getEmployeeById(employeeId)).willReturn(Optional.empty());
+        given(employeeService.updateEmployee(eq(employeeId), any(Employee.class))).willReturn(Optional.empty());
 
         //when - action or the behaviour that we are going to test
         ResultActions response = mockMvc.perform(put("/api/employees/{id}",employeeId)
@@ -200,7 +244,7 @@ public class EmployeeControllerTest {
     public void givenEmployeeId_whenDeleteEmployee_thenReturn200() throws Exception {
         //given - precondition or setup
         long employeeId = 1L;
-        willDoNothing().given(employeeService).deleteEmployee(employeeId);
+        given(employeeService.deleteEmployee(employeeId)).willReturn(true);
 
         //when - action or the behaviour that we are going to test
         ResultActions response = mockMvc.perform(delete("/api/employees/{id}",employeeId)
@@ -211,4 +255,305 @@ public class EmployeeControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    //JUnit for keyset paginated get employees REST API
+    @Test
+    public void givenLimit_whenGetEmployeesPage_thenReturnPageWithNextCursor() throws Exception {
+        //given - precondition or setup
+        List<Employee> content = List.of(
+                Employee.builder().id(6L).firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").build(),
+                Employee.builder().id(7L).firstName("Maria").lastName("KOntouri").email("m.k@gmail.com").build());
+        given(employeeService.getEmployeesPage(5L, 2)).willReturn(new EmployeePage(content, 7L));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("after", "5")
+                .param("limit", "2"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.size()", CoreMatchers.is(content.size())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next", CoreMatchers.is(7)));
+    }
+
+    //JUnit for streaming get all employees REST API
+    @Test
+    public void givenEmployees_whenStreamAllEmployees_thenWriteJsonArray() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder().id(1L).firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").build();
+        willAnswer(invocation -> {
+            Consumer<Employee> action = invocation.getArgument(0);
+            action.accept(employee);
+            return null;
+        }).given(employeeService).forEachEmployee(any());
+
+        //when - action or the behaviour that we are going to test
+        MvcResult mvcResult = mockMvc.perform(get("/api/employees/stream"))
+                .andExpect(MockMvcResultMatchers.request().asyncStarted())
+                .andReturn();
+        ResultActions response = mockMvc.perform(asyncDispatch(mvcResult));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].email", CoreMatchers.is(employee.getEmail())));
+    }
+
+    //JUnit for bulk create employees REST API
+    @Test
+    public void givenListOfEmployees_whenCreateEmployees_thenReturnResultPerEmployee() throws Exception {
+        //given - precondition or setup
+        List<Employee> employees = List.of(
+                Employee.builder().firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").build(),
+                Employee.builder().firstName("Maria").lastName("KOntouri").email("m.k@gmail.com").build());
+        given(employeeService.saveEmployees(any())).willReturn(List.of(
+                new EmployeeBatchResult(0, EmployeeBatchResult.Status.CREATED, 1L, "a.t@gmail.com", null),
+                new EmployeeBatchResult(1, EmployeeBatchResult.Status.DUPLICATE, null, "m.k@gmail.com", "duplicate")));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(employees)));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.size()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].status", CoreMatchers.is("CREATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].status", CoreMatchers.is("DUPLICATE")));
+    }
+
+    //JUnit for bulk create employees REST API with NDJSON body
+    @Test
+    public void givenNdjsonEmployees_whenCreateEmployees_thenParseEveryLine() throws Exception {
+        //given - precondition or setup
+        String body = "{\"firstName\":\"Angelos\",\"lastName\":\"Toutsios\",\"email\":\"a.t@gmail.com\"}\n"
+                + "{\"firstName\":\"Maria\",\"lastName\":\"KOntouri\",\"email\":\"m.k@gmail.com\"}\n";
+        given(employeeService.saveEmployees(ArgumentMatchers.argThat(employees -> employees.size() == 2)))
+                .willReturn(List.of(
+                        new EmployeeBatchResult(0, EmployeeBatchResult.Status.CREATED, 1L, "a.t@gmail.com", null),
+                        new EmployeeBatchResult(1, EmployeeBatchResult.Status.CREATED, 2L, "m.k@gmail.com", null)));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(post("/api/employees/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(body));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].id", CoreMatchers.is(2)));
+    }
+
+    //negative scenario
+    //JUnit for update employee REST API with a stale version
+    @Test
+    public void givenStaleVersion_whenUpdateEmployee_thenReturnConflict() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Angelos2")
+                .lastName("Toutsios2")
+                .email("angelos.toutsios2@gmail.com")
+                .version(3L)
+                .build();
+
+        given(employeeService.updateEmployee(eq(employeeId), any(Employee.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Employee.class, employeeId));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(put("/api/employees/{id}",employeeId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(updatedEmployee)));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isConflict())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    //JUnit test for patch employee REST API
+    @Test
+    public void givenMergePatch_whenPatchEmployee_thenReturnPatchedEmployee() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        Employee patchedEmployee = Employee.builder()
+                .id(employeeId)
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos@gmail.com")
+                .version(4L)
+                .build();
+        given(employeeService.patchEmployee(employeeId, Map.of("email", "angelos@gmail.com")))
+                .willReturn(Optional.of(patchedEmployee));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(patch("/api/employees/{id}",employeeId)
+                .contentType("application/merge-patch+json")
+                .content("{\"email\":\"angelos@gmail.com\"}"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.firstName", CoreMatchers.is(patchedEmployee.getFirstName())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.email", CoreMatchers.is(patchedEmployee.getEmail())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.version", CoreMatchers.is(4)));
+    }
+
+    //JUnit test for search employees REST API
+    @Test
+    public void givenQuery_whenSearchEmployees_thenReturnRankedPage() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder()
+                .id(1L)
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build();
+        given(employeeService.searchEmployees("ang", 0, 20))
+                .willReturn(new EmployeeSearchPage(List.of(employee), 0, 20, 1));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/search").param("q", "ang"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.total", CoreMatchers.is(1)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].firstName", CoreMatchers.is(employee.getFirstName())));
+    }
+
+
+    //JUnit for delete employee REST API with an unknown id
+    @Test
+    public void givenUnknownEmployeeId_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given - precondition or setup
+        long employeeId = 1L;
+        given(employeeService.deleteEmployee(employeeId)).willReturn(false);
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}",employeeId));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    //JUnit for bulk delete employees REST API by ids
+    @Test
+    public void givenIds_whenDeleteEmployees_thenReturnDeletedCount() throws Exception {
+        //given - precondition or setup
+        given(employeeService.deleteEmployees(List.of(1L, 2L, 3L))).willReturn(2);
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new EmployeeBulkDelete(List.of(1L, 2L, 3L), null))));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.deleted", CoreMatchers.is(2)));
+    }
+
+    //JUnit for bulk delete employees REST API by email domain
+    @Test
+    public void givenEmailDomain_whenDeleteEmployees_thenDeleteEmployeesOfDomain() throws Exception {
+        //given - precondition or setup
+        given(employeeService.getEmployeeIdsByEmailDomain("example.com")).willReturn(List.of(4L, 5L));
+        given(employeeService.deleteEmployees(List.of(4L, 5L))).willReturn(2);
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new EmployeeBulkDelete(null, "example.com"))));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.deleted", CoreMatchers.is(2)));
+    }
+
+    //JUnit for bulk delete employees REST API without ids or filter
+    @Test
+    public void givenNeitherIdsNorDomain_whenDeleteEmployees_thenReturn400() throws Exception {
+        //given - precondition or setup
+        EmployeeBulkDelete bulkDelete = new EmployeeBulkDelete(null, null);
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bulkDelete)));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+
+    //JUnit for get employee changes REST API
+    @Test
+    public void givenChanges_whenGetChanges_thenReturnChangesAndNextSequence() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder().id(1L).firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").version(0L).build();
+        List<EmployeeChange> changes = List.of(
+                new EmployeeChange(11L, EmployeeChange.Type.CREATED, Instant.now(), employee),
+                new EmployeeChange(12L, EmployeeChange.Type.DELETED, Instant.now(), employee));
+        given(changePublisher.read(10L, 100)).willReturn(new EmployeeChangePage(changes, 12L));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/changes").param("since", "10"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.size()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].type", CoreMatchers.is("CREATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].employee.email", CoreMatchers.is(employee.getEmail())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next", CoreMatchers.is(12)));
+    }
+
+    //JUnit for get employee changes REST API - purged changes
+    @Test
+    public void givenPurgedChanges_whenGetChanges_thenReturn410() throws Exception {
+        //given - precondition or setup
+        given(changePublisher.read(3L, 100)).willThrow(new GoneException("Changes after 3 are no longer kept"));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/changes").param("since", "3"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isGone())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+
+    //JUnit for incremental sync REST API
+    @Test
+    public void givenModifiedSince_whenGetAllEmployees_thenReturnChangedEmployeesAndTombstones() throws Exception {
+        //given - precondition or setup
+        long since = 40L;
+        Instant modifiedAt = Instant.parse("2022-09-01T10:00:05Z");
+        Employee employee = Employee.builder().id(1L).firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").version(2L).build();
+        List<EmployeeSyncEntry> entries = List.of(
+                new EmployeeSyncEntry(1L, 41L, modifiedAt, false, employee),
+                new EmployeeSyncEntry(2L, 42L, modifiedAt, true, null));
+        given(employeeSync.read(since, 0L, 50)).willReturn(new EmployeeSyncPage(entries, 42L, 2L));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("modifiedSince", Long.toString(since))
+                .param("limit", "50"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.size()", CoreMatchers.is(2)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].employee.email", CoreMatchers.is(employee.getEmail())))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].deleted", CoreMatchers.is(true)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].employee").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.modifiedSince", CoreMatchers.is(42)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.after", CoreMatchers.is(2)));
+    }
+
 }
@@ -0,0 +1,120 @@
+package com.toutsos.springboot.diagnostics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlowQueryListenerTests {
+
+    private BlockingQueue<String> written;
+
+    private AsyncSlowQueryLog asyncSlowQueryLog;
+
+    @BeforeEach
+    public void setup(){
+        written = new LinkedBlockingQueue<>();
+        asyncSlowQueryLog = new AsyncSlowQueryLog(16, written::add);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        asyncSlowQueryLog.destroy();
+    }
+
+    @DisplayName("JUnit test for logging a slow statement with redacted parameters")
+    @Test
+    public void givenSlowStatement_whenAfterQuery_thenLogRedactedEntry() throws Exception {
+        //given - precondition or setup
+        SlowQueryListener listener = new SlowQueryListener(Duration.ofMillis(100), 1.0, true, asyncSlowQueryLog);
+        String previousMethod = RepositoryMethodContext.enter("EmployeeRepository.findByEmail");
+
+        //when - action or the behaviour that we are going to test
+        try {
+            listener.afterQuery(execution(250), List.of(query("select * from employees where email=? and id>?",
+                    "angelos.toutsios@gmail.com", 5L)));
+        } finally {
+            RepositoryMethodContext.restore(previousMethod);
+        }
+
+        //then - verify the output
+        String entry = written.poll(5, TimeUnit.SECONDS);
+        assertThat(entry).contains("duration=250ms")
+                .contains("repositoryMethod=EmployeeRepository.findByEmail")
+                .contains("select * from employees where email=? and id>?")
+                .contains("1=" + SlowQueryListener.REDACTED)
+                .contains("2=5")
+                .doesNotContain("angelos.toutsios@gmail.com");
+    }
+
+    @DisplayName("JUnit test for skipping statements under the threshold")
+    @Test
+    public void givenFastStatement_whenAfterQuery_thenLogNothing() throws Exception {
+        //given - precondition or setup
+        SlowQueryListener listener = new SlowQueryListener(Duration.ofMillis(100), 1.0, true, asyncSlowQueryLog);
+
+        //when - action or the behaviour that we are going to test
+        listener.afterQuery(execution(20), List.of(query("select * from employees")));
+
+        //then - verify the output
+        assertThat(written.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @DisplayName("JUnit test for dropping entries when the buffer is full")
+    @Test
+    public void givenFullBuffer_whenOffer_thenDropAndCount() throws Exception {
+        //given - precondition or setup
+        asyncSlowQueryLog.destroy();
+        AsyncSlowQueryLog blockedLog = new AsyncSlowQueryLog(1, entry -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        //when - action or the behaviour that we are going to test
+        blockedLog.offer("first");
+        Thread.sleep(200);
+        blockedLog.offer("second");
+        boolean accepted = blockedLog.offer("third");
+
+        //then - verify the output
+        assertThat(accepted).isFalse();
+        assertThat(blockedLog.getDropped()).isEqualTo(1);
+    }
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setElapsedTime(elapsedMillis);
+        executionInfo.setSuccess(true);
+        return executionInfo;
+    }
+
+    private static QueryInfo query(String sql, Object... parameters) throws NoSuchMethodException {
+        QueryInfo queryInfo = new QueryInfo(sql);
+        if (parameters.length > 0) {
+            List<ParameterSetOperation> parameterSet = new ArrayList<>();
+            for (int i = 0; i < parameters.length; i++) {
+                parameterSet.add(new ParameterSetOperation(
+                        PreparedStatement.class.getMethod("setObject", int.class, Object.class),
+                        new Object[]{i + 1, parameters[i]}));
+            }
+            queryInfo.getParametersList().add(parameterSet);
+        }
+        return queryInfo;
+    }
+}
@@ -0,0 +1,134 @@
+package com.toutsos.springboot.execution;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.exception.ServiceUnavailableException;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeSearchPage;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import com.toutsos.springboot.service.EmployeeEmailIndex;
+import com.toutsos.springboot.service.EmployeeSearchIndex;
+import com.toutsos.springboot.service.EmployeeService;
+import com.toutsos.springboot.service.EmployeeServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class DbCallLimiterTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private DbCallLimiter dbCallLimiter;
+
+    private EmployeeService limitedService;
+
+    @BeforeEach
+    public void setup(){
+        dbCallLimiter = new DbCallLimiter(1, Duration.ofMillis(20));
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(employeeRepository);
+        proxyFactory.addAspect(dbCallLimiter);
+        EmployeeRepository limitedRepository = proxyFactory.getProxy();
+        limitedService = new EmployeeServiceImpl(limitedRepository, new EmployeeEmailIndex(), new EmployeeSearchIndex(),
+                new ObjectMapper());
+    }
+
+    @DisplayName("JUnit test for rejecting a service call when every database permit is taken")
+    @Test
+    public void givenAllPermitsTaken_whenServiceCalled_thenRejectWithServiceUnavailable() throws Exception {
+        //given - precondition or setup
+        CountDownLatch inRepository = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(employeeRepository.findDetachedById(1L)).willAnswer(invocation -> {
+            inRepository.countDown();
+            release.await();
+            return Optional.empty();
+        });
+        CompletableFuture<Optional<Employee>> slowCall = CompletableFuture.supplyAsync(() -> limitedService.getEmployeeById(1L));
+        assertThat(inRepository.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(ServiceUnavailableException.class, () -> limitedService.getEmployeeById(2L));
+
+        //then - verify the output
+        assertThat(dbCallLimiter.getRejected()).isEqualTo(1);
+        assertThat(dbCallLimiter.getInFlight()).isEqualTo(1);
+        release.countDown();
+        assertThat(slowCall.get(5, TimeUnit.SECONDS)).isEmpty();
+        assertThat(dbCallLimiter.getInFlight()).isZero();
+    }
+
+    @DisplayName("JUnit test for releasing the database permit when the call fails")
+    @Test
+    public void givenFailingCall_whenServiceCalled_thenReleasePermit(){
+        //given - precondition or setup
+        given(employeeRepository.findDetachedById(1L)).willThrow(new IllegalStateException("down"));
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(IllegalStateException.class, () -> limitedService.getEmployeeById(1L));
+
+        //then - verify the output
+        assertThat(dbCallLimiter.getInFlight()).isZero();
+        assertThat(dbCallLimiter.getRejected()).isZero();
+    }
+
+    @DisplayName("JUnit test for serving a call that does not touch the database while every permit is taken")
+    @Test
+    public void givenAllPermitsTaken_whenSearchEmployees_thenAnswerFromIndex() throws Exception {
+        //given - precondition or setup
+        CountDownLatch inRepository = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        given(employeeRepository.findDetachedById(1L)).willAnswer(invocation -> {
+            inRepository.countDown();
+            release.await();
+            return Optional.empty();
+        });
+        CompletableFuture<Optional<Employee>> slowCall = CompletableFuture.supplyAsync(() -> limitedService.getEmployeeById(1L));
+        assertThat(inRepository.await(5, TimeUnit.SECONDS)).isTrue();
+
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage page = limitedService.searchEmployees("angelos", 0, 10);
+
+        //then - verify the output
+        assertThat(page.getContent()).isEmpty();
+        assertThat(dbCallLimiter.getRejected()).isZero();
+        release.countDown();
+        slowCall.get(5, TimeUnit.SECONDS);
+    }
+
+    @DisplayName("JUnit test for not taking a second permit inside a transaction")
+    @Test
+    public void givenActiveTransaction_whenRepositoryCalled_thenRunWithoutPermit(){
+        //given - precondition or setup
+        given(employeeRepository.findDetachedById(1L)).willAnswer(invocation -> {
+            assertThat(dbCallLimiter.getInFlight()).isZero();
+            return Optional.empty();
+        });
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        //when - action or the behaviour that we are going to test
+        try {
+            limitedService.getEmployeeById(1L);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        //then - verify the output
+        assertThat(dbCallLimiter.getRejected()).isZero();
+    }
+}
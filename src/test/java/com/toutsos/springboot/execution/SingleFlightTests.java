@@ -0,0 +1,95 @@
+package com.toutsos.springboot.execution;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTests {
+
+    private final SingleFlight<Long, StringBuilder> singleFlight = new SingleFlight<>(value -> new StringBuilder(value));
+
+    @DisplayName("JUnit test for sharing one in-flight call between concurrent callers")
+    @Test
+    public void givenCallInFlight_whenSameKeyRequested_thenWaitForItsResult() throws Exception {
+        //given - precondition or setup
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<StringBuilder> first = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            calls.incrementAndGet();
+            await(release);
+            return new StringBuilder("result");
+        }));
+        awaitInFlight();
+
+        //when - action or the behaviour that we are going to test
+        CompletableFuture<StringBuilder> second = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            calls.incrementAndGet();
+            return new StringBuilder("second call");
+        }));
+        while (singleFlight.getCoalesced() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        //then - verify the output
+        assertThat(first.get(5, TimeUnit.SECONDS).toString()).isEqualTo("result");
+        assertThat(second.get(5, TimeUnit.SECONDS).toString()).isEqualTo("result");
+        assertThat(second.get()).isNotSameAs(first.get());
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(singleFlight.getExecuted()).isEqualTo(1);
+        assertThat(singleFlight.getInFlight()).isZero();
+    }
+
+    @DisplayName("JUnit test for running the call again once the previous one finished")
+    @Test
+    public void givenFinishedCall_whenSameKeyRequested_thenRunAgain(){
+        //given - precondition or setup
+        singleFlight.execute(1L, () -> new StringBuilder("first"));
+
+        //when - action or the behaviour that we are going to test
+        StringBuilder result = singleFlight.execute(1L, () -> new StringBuilder("second"));
+
+        //then - verify the output
+        assertThat(result.toString()).isEqualTo("second");
+        assertThat(singleFlight.getExecuted()).isEqualTo(2);
+        assertThat(singleFlight.getCoalesced()).isZero();
+    }
+
+    @DisplayName("JUnit test for releasing the key when the call fails")
+    @Test
+    public void givenFailingCall_whenExecute_thenRethrowAndForgetKey(){
+        //given - precondition or setup
+        SingleFlight<Long, String> failing = new SingleFlight<>(UnaryOperator.identity());
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(IllegalStateException.class, () -> failing.execute(1L, () -> {
+            throw new IllegalStateException("down");
+        }));
+
+        //then - verify the output
+        assertThat(failing.getInFlight()).isZero();
+        assertThat(failing.execute(1L, () -> "up")).isEqualTo("up");
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        while (singleFlight.getInFlight() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.toutsos.springboot.integration;
+
+import com.toutsos.springboot.model.Employee;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+//The employee API scenarios, written once against WebTestClient. Every stack runs them with its own
+// client and repository, and all of them have to answer the same way
+public abstract class AbstractEmployeeControllerTest extends AbstractContainerBaseTest {
+
+    //used to make HTTP requests
+    protected abstract WebTestClient client();
+
+    protected abstract Employee save(Employee employee);
+
+    protected abstract void saveAll(List<Employee> employees);
+
+    protected abstract void deleteAll();
+
+    @BeforeEach
+    void setup(){
+        deleteAll();
+    }
+
+    @Test
+    public void givenEmployeeObj_whenCreateEmployee_thenReturnSavedEmployee(){
+        // given - precondition
+        Employee employee = Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build();
+
+        // when - action or behavior to test
+        WebTestClient.ResponseSpec response = client().post().uri("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(employee)
+                .exchange();
+
+        // then - verify the result of output using assert statements
+        response.expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+                .jsonPath("$.lastName").isEqualTo(employee.getLastName())
+                .jsonPath("$.email").isEqualTo(employee.getEmail());
+    }
+
+    @Test
+    public void givenListOfEmployees_whenGetAllEmployees_thenReturnEmployeesList(){
+        //given - precondition or setup
+        List<Employee> listOfEmployees = List.of(
+                Employee.builder().firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").build(),
+                Employee.builder().firstName("Maria").lastName("KOntouri").email("m.k@gmail.com").build());
+        saveAll(listOfEmployees);
+
+        //when - action or the behaviour that we are going to test
+        WebTestClient.ResponseSpec response = client().get().uri("/api/employees").exchange();
+
+        //then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.size()").isEqualTo(listOfEmployees.size());
+    }
+
+    @Test
+    public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployeeObj(){
+        //given - precondition or setup
+        Employee employee = save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+
+        //when - action or the behaviour that we are going to test
+        WebTestClient.ResponseSpec response = client().get().uri("/api/employees/{id}", employee.getId()).exchange();
+
+        //then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(employee.getFirstName())
+                .jsonPath("$.lastName").isEqualTo(employee.getLastName())
+                .jsonPath("$.email").isEqualTo(employee.getEmail());
+    }
+
+    //negative scenario
+    //JUnit for get employee by id REST API
+    @Test
+    public void givenInvalidEmployeeId_whenGetEmployeeById_thenReturnNotFoundStatus(){
+        //given - precondition or setup
+        Employee employee = save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+
+        //when - action or the behaviour that we are going to test
+        WebTestClient.ResponseSpec response = client().get().uri("/api/employees/{id}", employee.getId() + 1).exchange();
+
+        //then - verify the output
+        response.expectStatus().isNotFound();
+    }
+
+    @Test
+    public void givenUpdatedEmployee_whenUpdateEmployee_thenReturnUpdatedEmployeeObj(){
+        //given - precondition or setup
+        Employee savedEmployee = save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Angelos2")
+                .lastName("Toutsios2")
+                .email("angelos.toutsios2@gmail.com")
+                .build();
+
+        //when - action or the behaviour that we are going to test
+        WebTestClient.ResponseSpec response = client().put().uri("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedEmployee)
+                .exchange();
+
+        //then - verify the output
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(updatedEmployee.getFirstName())
+                .jsonPath("$.lastName").isEqualTo(updatedEmployee.getLastName())
+                .jsonPath("$.email").isEqualTo(updatedEmployee.getEmail());
+    }
+
+    //negative scenario
+    //JUnit for update employee REST API
+    @Test
+    public void givenInvalidEmployeeId_whenUpdateEmployee_thenReturnNotFound(){
+        //given - precondition or setup
+        Employee savedEmployee = save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+
+        Employee updatedEmployee = Employee.builder()
+                .firstName("Angelos2")
+                .lastName("Toutsios2")
+                .email("angelos.toutsios2@gmail.com")
+                .build();
+
+        //when - action or the behaviour that we are going to test
+        WebTestClient.ResponseSpec response = client().put().uri("/api/employees/{id}", savedEmployee.getId() + 1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedEmployee)
+                .exchange();
+
+        //then - verify the output
+        response.expectStatus().isNotFound();
+    }
+
+    //JUnit for delete employee REST API
+    @Test
+    public void givenEmployeeId_whenDeleteEmployee_thenReturn200(){
+        //given - precondition or setup
+        Employee savedEmployee = save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+
+        //when - action or the behaviour that we are going to test
+        WebTestClient.ResponseSpec response = client().delete().uri("/api/employees/{id}", savedEmployee.getId()).exchange();
+
+        //then - verify the output
+        response.expectStatus().isOk();
+    }
+}
@@ -0,0 +1,120 @@
+package com.toutsos.springboot.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.changes.EmployeeChangePublisher;
+import com.toutsos.springboot.model.Employee;
+import org.hamcrest.CoreMatchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+//the outbox is written in the same transaction as the employees, so it needs the real MySQL schema
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+public class EmployeeChangesITests extends AbstractContainerBaseTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EmployeeChangePublisher changePublisher;
+
+    //JUnit for get employee changes REST API
+    @Test
+    public void givenCreateUpdateAndDelete_whenGetChanges_thenReturnThemInCommitOrder() throws Exception {
+        //given - precondition or setup
+        changePublisher.publish();
+        long since = changePublisher.getPublished();
+        Employee employee = Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.changes@gmail.com")
+                .build();
+        String created = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readValue(created, Employee.class).getId();
+        mockMvc.perform(put("/api/employees/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee.toBuilder().firstName("Angelos2").build())))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        mockMvc.perform(delete("/api/employees/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        changePublisher.publish();
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees/changes")
+                .param("since", Long.toString(since)));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content.size()", CoreMatchers.is(3)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[0].type", CoreMatchers.is("CREATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].type", CoreMatchers.is("UPDATED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[1].employee.firstName", CoreMatchers.is("Angelos2")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[2].type", CoreMatchers.is("DELETED")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[2].employee.id", CoreMatchers.is((int) id)))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.next", CoreMatchers.is((int) since + 3)));
+    }
+
+    //JUnit for incremental sync REST API
+    @Test
+    public void givenCreateAndDelete_whenSyncModifiedSince_thenReturnEmployeeAndTombstoneOnce() throws Exception {
+        //given - precondition or setup
+        long keptId = create("angelos.sync.kept@gmail.com");
+        long deletedId = create("angelos.sync.deleted@gmail.com");
+        mockMvc.perform(delete("/api/employees/{id}", deletedId))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(get("/api/employees")
+                .param("modifiedSince", "")
+                .param("limit", "1000"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[?(@.id == " + keptId + ")].employee.email",
+                        contains("angelos.sync.kept@gmail.com")))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[?(@.id == " + deletedId + ")].deleted", contains(true)));
+
+        // the next sync starts at the watermark and sees neither again
+        JsonNode page = objectMapper.readTree(response.andReturn().getResponse().getContentAsString());
+        mockMvc.perform(get("/api/employees")
+                        .param("modifiedSince", page.get("modifiedSince").asText())
+                        .param("after", page.get("after").asText()))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.content[?(@.id == " + keptId + " || @.id == " + deletedId + ")]", empty()));
+    }
+
+    private long create(String email) throws Exception {
+        Employee employee = Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email(email)
+                .build();
+        String created = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(created, Employee.class).getId();
+    }
+}
@@ -3,6 +3,7 @@ package com.toutsos.springboot.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.toutsos.springboot.model.Employee;
 import com.toutsos.springboot.repository.EmployeeRepository;
+import com.toutsos.springboot.service.CachingEmployeeService;
 import org.hamcrest.CoreMatchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
@@ -40,9 +42,14 @@ public class EmployeeControllerITests {
     @Autowired
     private ObjectMapper objectMapper;
 
+    //the repository is cleaned behind the service's back, so its cache has to be dropped too
+    @Autowired
+    private CachingEmployeeService cachingEmployeeService;
+
     @BeforeEach
     void setup(){
         employeeRepository.deleteAll();
+        cachingEmployeeService.invalidateAll();
     }
 
     @Test
@@ -211,5 +218,44 @@ public class EmployeeControllerITests {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    //JUnit for delete employee REST API with an id that was already deleted
+    @Test
+    public void givenDeletedEmployeeId_whenDeleteEmployee_thenReturn404() throws Exception {
+        //given - precondition or setup
+        Employee savedEmployee = employeeRepository.save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+        mockMvc.perform(delete("/api/employees/{id}",savedEmployee.getId()));
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees/{id}",savedEmployee.getId()));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isNotFound())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    //JUnit for bulk delete employees REST API by email domain
+    @Test
+    public void givenEmployeesOfDomain_whenDeleteEmployees_thenDeleteOnlyThatDomain() throws Exception {
+        //given - precondition or setup
+        employeeRepository.save(Employee.builder().firstName("Angelos").lastName("Toutsios").email("angelos@example.com").build());
+        employeeRepository.save(Employee.builder().firstName("Maria").lastName("Kontouri").email("maria@example.com").build());
+        Employee keptEmployee = employeeRepository.save(Employee.builder().firstName("John").lastName("Cena").email("cena@gmail.com").build());
+
+        //when - action or the behaviour that we are going to test
+        ResultActions response = mockMvc.perform(delete("/api/employees")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"emailDomain\":\"example.com\"}"));
+
+        //then - verify the output
+        response.andExpect(MockMvcResultMatchers.status().isOk())
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.deleted", CoreMatchers.is(2)));
+        assertThat(employeeRepository.findAll())
+                .extracting(Employee::getId).containsExactly(keptEmployee.getId());
+    }
 
 }
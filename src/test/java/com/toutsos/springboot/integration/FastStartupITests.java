@@ -0,0 +1,94 @@
+package com.toutsos.springboot.integration;
+
+import com.toutsos.springboot.SpringBootTestingApplication;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Starts the whole application twice against the container, once as configured and once with the
+// faststart profile, and checks the recorded startup steps. Counting steps instead of timing them
+// keeps the test stable on a busy build machine
+public class FastStartupITests extends AbstractContainerBaseTest {
+
+    private static final Logger log = LoggerFactory.getLogger(FastStartupITests.class);
+
+    private static final String INSTANTIATE = "spring.beans.instantiate";
+
+    @Test
+    public void givenFastStartProfile_whenStartApplication_thenFewerBeansAreCreatedDuringStartup() {
+        //given - precondition or setup
+        List<StartupTimeline.TimelineEvent> defaultStartup = start();
+
+        //when - action or the behaviour that we are going to test
+        List<StartupTimeline.TimelineEvent> fastStartup = start("faststart");
+
+        //then - verify the output
+        report("default", defaultStartup);
+        report("faststart", fastStartup);
+        assertThat(stepNames(fastStartup)).contains("spring.context.refresh", "spring.boot.application.ready");
+        assertThat(instantiatedBeans(fastStartup)).hasSizeLessThan(instantiatedBeans(defaultStartup).size());
+        // controllers are created on the first request
+        assertThat(instantiatedBeans(defaultStartup)).contains("employeeController");
+        assertThat(instantiatedBeans(fastStartup)).doesNotContain("employeeController");
+    }
+
+    private static List<StartupTimeline.TimelineEvent> start(String... profiles) {
+        SpringApplication application = SpringBootTestingApplication.application();
+        application.setAdditionalProfiles(profiles);
+        BufferingApplicationStartup startup = (BufferingApplicationStartup) application.getApplicationStartup();
+        try (ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--spring.datasource.url=" + MY_SQL_CONTAINER.getJdbcUrl(),
+                "--spring.datasource.username=" + MY_SQL_CONTAINER.getUsername(),
+                "--spring.datasource.password=" + MY_SQL_CONTAINER.getPassword())) {
+            return startup.getBufferedTimeline().getEvents();
+        }
+    }
+
+    private static Set<String> stepNames(List<StartupTimeline.TimelineEvent> events) {
+        return events.stream()
+                .map(event -> event.getStartupStep().getName())
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<String> instantiatedBeans(List<StartupTimeline.TimelineEvent> events) {
+        return events.stream()
+                .filter(event -> INSTANTIATE.equals(event.getStartupStep().getName()))
+                .map(event -> tag(event.getStartupStep(), "beanName"))
+                .collect(Collectors.toSet());
+    }
+
+    private static String tag(StartupStep step, String key) {
+        return StreamSupport.stream(step.getTags().spliterator(), false)
+                .filter(tag -> key.equals(tag.getKey()))
+                .map(StartupStep.Tag::getValue)
+                .findFirst()
+                .orElse("");
+    }
+
+    //The ten slowest steps at debug level, so a regression can be traced by turning the logger up
+    private static void report(String name, List<StartupTimeline.TimelineEvent> events) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        log.debug("{} startup: {} steps, {} beans instantiated", name, events.size(), instantiatedBeans(events).size());
+        events.stream()
+                .sorted(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration).reversed())
+                .limit(10)
+                .forEach(event -> log.debug("  {}ms {} {}", event.getDuration().toMillis(),
+                        event.getStartupStep().getName(), tag(event.getStartupStep(), "beanName")));
+    }
+}
@@ -0,0 +1,82 @@
+package com.toutsos.springboot.integration;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.ReactiveEmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//The scenarios of AbstractEmployeeControllerTest against the WebFlux + R2DBC stack
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+public class ReactiveEmployeeControllerITestcontainer extends AbstractEmployeeControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveEmployeeRepository employeeRepository;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Override
+    protected WebTestClient client() {
+        return webTestClient;
+    }
+
+    @Override
+    protected Employee save(Employee employee) {
+        return employeeRepository.save(employee).block();
+    }
+
+    @Override
+    protected void saveAll(List<Employee> employees) {
+        employeeRepository.saveAll(employees).blockLast();
+    }
+
+    @Override
+    protected void deleteAll() {
+        employeeRepository.deleteAll().block();
+    }
+
+    //JUnit for the change log of reactive writes
+    @Test
+    public void givenEmployeeId_whenUpdateEmployee_thenRecordUpdatedChange(){
+        //given - precondition or setup
+        Employee savedEmployee = save(Employee.builder()
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build());
+
+        //when - action or the behaviour that we are going to test
+        webTestClient.put().uri("/api/employees/{id}", savedEmployee.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(savedEmployee.toBuilder().firstName("Angelos2").version(null).build())
+                .exchange()
+                .expectStatus().isOk();
+
+        //then - verify the output
+        String changeType = databaseClient.sql("select change_type from employee_changes where employee_id = :id order by sequence desc limit 1")
+                .bind("id", savedEmployee.getId())
+                .map((row, metadata) -> row.get("change_type", String.class))
+                .one()
+                .block();
+        Long changeSequence = databaseClient.sql("select change_sequence from employees where id = :id")
+                .bind("id", savedEmployee.getId())
+                .map((row, metadata) -> row.get("change_sequence", Long.class))
+                .one()
+                .block();
+        assertThat(changeType).isEqualTo("UPDATED");
+        assertThat(changeSequence).isPositive();
+    }
+}
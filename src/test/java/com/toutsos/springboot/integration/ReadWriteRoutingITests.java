@@ -0,0 +1,141 @@
+package com.toutsos.springboot.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.model.Employee;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.testcontainers.containers.MySQLContainer;
+
+import javax.servlet.http.Cookie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+//Two independent MySQL containers stand in for a primary and its replica. Nothing replicates
+// between them, so where a row can be read from shows which one served the query
+@SpringBootTest(properties = {
+        "employees.datasource.routing.enabled=true",
+        "employees.cache.enabled=false"})
+@AutoConfigureMockMvc
+public class ReadWriteRoutingITests extends AbstractContainerBaseTest {
+
+    static final MySQLContainer REPLICA_CONTAINER;
+
+    static {
+        REPLICA_CONTAINER = new MySQLContainer("mysql:latest")
+                .withUsername("username")
+                .withPassword("password")
+                .withDatabaseName("ems");
+
+        REPLICA_CONTAINER.start();
+        Flyway.configure()
+                .dataSource(REPLICA_CONTAINER.getJdbcUrl(), REPLICA_CONTAINER.getUsername(), REPLICA_CONTAINER.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @DynamicPropertySource
+    public static void replicaPropertySource(DynamicPropertyRegistry registry){
+        registry.add("employees.datasource.routing.replica-urls",REPLICA_CONTAINER::getJdbcUrl);
+        registry.add("employees.datasource.routing.replica-username",REPLICA_CONTAINER::getUsername);
+        registry.add("employees.datasource.routing.replica-password",REPLICA_CONTAINER::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setup(){
+        primary = jdbcTemplate(MY_SQL_CONTAINER);
+        replica = jdbcTemplate(REPLICA_CONTAINER);
+        primary.update("delete from employees");
+        replica.update("delete from employees");
+    }
+
+    @Test
+    public void givenEmployeeObj_whenCreateEmployee_thenWriteToPrimaryOnly() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder().firstName("Angelos").lastName("Toutsios").email("angelos.toutsios@gmail.com").build();
+
+        //when - action or the behaviour that we are going to test
+        mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andExpect(MockMvcResultMatchers.cookie().exists("employees-primary-until"));
+
+        //then - verify the output
+        assertThat(countByEmail(primary, employee.getEmail())).isEqualTo(1);
+        assertThat(countByEmail(replica, employee.getEmail())).isZero();
+    }
+
+    @Test
+    public void givenEmployeeOnReplicaOnly_whenGetEmployeeById_thenReadFromReplica() throws Exception {
+        //given - precondition or setup
+        replica.update("insert into employees (id, first_name, last_name, email) values (1000, 'Maria', 'Kontouri', 'maria@gmail.com')");
+        double replicaReads = meterRegistry.get("employee.datasource.route").tags("target", "replica-0", "reason", "read").counter().count();
+
+        //when - action or the behaviour that we are going to test
+        mockMvc.perform(get("/api/employees/{id}", 1000L))
+
+        //then - verify the output
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.email").value("maria@gmail.com"));
+        assertThat(meterRegistry.get("employee.datasource.route").tags("target", "replica-0", "reason", "read").counter().count())
+                .isGreaterThan(replicaReads);
+    }
+
+    @Test
+    public void givenRecentWrite_whenGetEmployeeById_thenReadYourWriteFromPrimary() throws Exception {
+        //given - precondition or setup
+        Employee employee = Employee.builder().firstName("Angelos").lastName("Toutsios").email("angelos.toutsios@gmail.com").build();
+        MvcResult created = mockMvc.perform(post("/api/employees")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(employee)))
+                .andExpect(MockMvcResultMatchers.status().isCreated())
+                .andReturn();
+        long id = objectMapper.readValue(created.getResponse().getContentAsString(), Employee.class).getId();
+        Cookie stickiness = created.getResponse().getCookie("employees-primary-until");
+
+        //when - action or the behaviour that we are going to test
+        mockMvc.perform(get("/api/employees/{id}", id).cookie(stickiness))
+
+        //then - verify the output
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        //without the cookie the read goes to the replica, which never received the row
+        mockMvc.perform(get("/api/employees/{id}", id))
+                .andExpect(MockMvcResultMatchers.status().isNotFound());
+    }
+
+    private static long countByEmail(JdbcTemplate jdbcTemplate, String email){
+        return jdbcTemplate.queryForObject("select count(*) from employees where email = ?", Long.class, email);
+    }
+
+    private static JdbcTemplate jdbcTemplate(MySQLContainer container){
+        return new JdbcTemplate(new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.toutsos.springboot.metrics;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+public class RepositoryMetricsAspectTests {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmployeeRepository instrumentedRepository;
+
+    @BeforeEach
+    public void setup(){
+        meterRegistry = new SimpleMeterRegistry();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(employeeRepository);
+        proxyFactory.addAspect(new RepositoryMetricsAspect(meterRegistry));
+        instrumentedRepository = proxyFactory.getProxy();
+    }
+
+    @DisplayName("JUnit test for timing a repository finder and counting its rows")
+    @Test
+    public void givenFinder_whenInvoked_thenRecordLatencyAndRows(){
+        //given - precondition or setup
+        Employee employee = Employee.builder().id(1L).firstName("Angelos").lastName("Toutsios").email("a.t@gmail.com").build();
+        given(employeeRepository.findAll()).willReturn(List.of(employee, employee));
+        given(employeeRepository.findByEmail("a.t@gmail.com")).willReturn(Optional.empty());
+
+        //when - action or the behaviour that we are going to test
+        instrumentedRepository.findAll();
+        instrumentedRepository.findByEmail("a.t@gmail.com");
+
+        //then - verify the output
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.INVOCATIONS)
+                .tags("method", "findAll", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.ROWS)
+                .tag("method", "findAll").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.ROWS)
+                .tag("method", "findByEmail").summary().totalAmount()).isEqualTo(0);
+    }
+
+    @DisplayName("JUnit test for timing a failing repository call")
+    @Test
+    public void givenFailingFinder_whenInvoked_thenRecordErrorOutcome(){
+        //given - precondition or setup
+        given(employeeRepository.findByJPQL("Angelos", "Toutsios")).willThrow(new IllegalStateException("down"));
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(IllegalStateException.class, () -> instrumentedRepository.findByJPQL("Angelos", "Toutsios"));
+
+        //then - verify the output
+        assertThat(meterRegistry.get(RepositoryMetricsAspect.INVOCATIONS)
+                .tags("method", "findByJPQL", "outcome", "error").timer().count()).isEqualTo(1);
+    }
+}
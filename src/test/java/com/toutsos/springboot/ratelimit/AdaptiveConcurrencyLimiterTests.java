@@ -0,0 +1,108 @@
+package com.toutsos.springboot.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @DisplayName("JUnit test for rejecting requests over the concurrency limit")
+    @Test
+    public void givenLimitReached_whenTryAcquire_thenReject(){
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofMillis(100), 0.5);
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+
+        //when - action or the behaviour that we are going to test
+        boolean acquired = limiter.tryAcquire();
+
+        //then - verify the output
+        assertThat(acquired).isFalse();
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for growing the limit while fast responses use it")
+    @Test
+    public void givenFastResponsesAtLimit_whenRelease_thenIncreaseLimit(){
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofMillis(100), 0.5);
+
+        //when - action or the behaviour that we are going to test
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            limiter.release(FAST, false, System.nanoTime());
+            limiter.release(FAST, false, System.nanoTime());
+        }
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isGreaterThan(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @DisplayName("JUnit test for backing off once per interval when responses are slow")
+    @Test
+    public void givenSlowResponses_whenRelease_thenDecreaseLimitOncePerInterval(){
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, Duration.ofMillis(100), 0.5);
+        long now = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+        }
+
+        //when - action or the behaviour that we are going to test
+        limiter.release(SLOW, false, now);
+        limiter.release(SLOW, false, now + FAST);
+        limiter.release(FAST, true, now + SLOW);
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for never backing off below the minimum limit")
+    @Test
+    public void givenRepeatedFailures_whenRelease_thenKeepMinimumLimit(){
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 3, 10, Duration.ofMillis(100), 0.5);
+        long now = System.nanoTime();
+
+        //when - action or the behaviour that we are going to test
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.release(SLOW, true, now + i * SLOW);
+        }
+
+        //then - verify the output
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @DisplayName("JUnit test for keeping the limit when a response slow by design completes")
+    @Test
+    public void givenUnmeasuredResponses_whenReleaseUnmeasured_thenBackOffOnlyOnFailure(){
+        //given - precondition or setup
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 10, Duration.ofMillis(100), 0.5);
+        long now = System.nanoTime();
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+
+        //when - action or the behaviour that we are going to test
+        limiter.releaseUnmeasured(false, now);
+        int limitAfterSuccess = limiter.getLimit();
+        limiter.releaseUnmeasured(true, now + SLOW);
+
+        //then - verify the output
+        assertThat(limitAfterSuccess).isEqualTo(8);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.toutsos.springboot.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmployeeRateLimitFilterTests {
+
+    private AtomicLong time;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private EmployeeRateLimitFilter filter;
+
+    @BeforeEach
+    public void setup(){
+        time = new AtomicLong();
+        meterRegistry = new SimpleMeterRegistry();
+        concurrencyLimiter = new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5);
+        filter = new EmployeeRateLimitFilter(new EmployeeRateLimitFilter.Limit(10, 2),
+                new EmployeeRateLimitFilter.Limit(1, 1), 100, concurrencyLimiter, meterRegistry, time::get);
+    }
+
+    @DisplayName("JUnit test for answering 429 with Retry-After once the client's bucket is empty")
+    @Test
+    public void givenBucketEmpty_whenRequest_thenTooManyRequests() throws Exception {
+        //given - precondition or setup
+        assertThat(send("GET", "/api/employees/1", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(send("GET", "/api/employees/2", "10.0.0.1").getStatus()).isEqualTo(200);
+
+        //when - action or the behaviour that we are going to test
+        MockHttpServletResponse response = send("GET", "/api/employees/3", "10.0.0.1");
+
+        //then - verify the output
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(decisions("GET /api/employees/{id}", "rate", "rejected")).isEqualTo(1);
+        assertThat(decisions("GET /api/employees/{id}", "rate", "allowed")).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for keeping separate buckets per client and per endpoint")
+    @Test
+    public void givenBucketEmpty_whenOtherClientOrEndpoint_thenAllow() throws Exception {
+        //given - precondition or setup
+        send("GET", "/api/employees/1", "10.0.0.1");
+        send("GET", "/api/employees/1", "10.0.0.1");
+
+        //when - action or the behaviour that we are going to test
+        MockHttpServletResponse otherClient = send("GET", "/api/employees/1", "10.0.0.2");
+        MockHttpServletResponse otherEndpoint = send("PUT", "/api/employees/1", "10.0.0.1");
+
+        //then - verify the output
+        assertThat(otherClient.getStatus()).isEqualTo(200);
+        assertThat(otherEndpoint.getStatus()).isEqualTo(200);
+    }
+
+    @DisplayName("JUnit test for refilling the bucket over time")
+    @Test
+    public void givenBucketEmpty_whenTimePasses_thenAllowAgain() throws Exception {
+        //given - precondition or setup
+        send("GET", "/api/employees", "10.0.0.1");
+        MockHttpServletResponse limited = send("GET", "/api/employees", "10.0.0.1");
+        assertThat(limited.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        //when - action or the behaviour that we are going to test
+        time.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        MockHttpServletResponse response = send("GET", "/api/employees", "10.0.0.1");
+
+        //then - verify the output
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @DisplayName("JUnit test for answering 503 when the concurrency limit is reached")
+    @Test
+    public void givenConcurrencyLimitReached_whenRequest_thenServiceUnavailable() throws Exception {
+        //given - precondition or setup
+        concurrencyLimiter.tryAcquire();
+        concurrencyLimiter.tryAcquire();
+
+        //when - action or the behaviour that we are going to test
+        MockHttpServletResponse response = send("GET", "/api/employees/1", "10.0.0.1");
+
+        //then - verify the output
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(decisions("GET /api/employees/{id}", "concurrency", "rejected")).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for releasing the concurrency slot and backing off on a server error")
+    @Test
+    public void givenServerError_whenRequest_thenReleaseSlotAndDecreaseLimit() throws Exception {
+        //given - precondition or setup
+        MockHttpServletRequest request = request("GET", "/api/employees/1", "10.0.0.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when - action or the behaviour that we are going to test
+        filter.doFilter(request, response, (req, res) -> ((HttpServletResponse) res).setStatus(503));
+
+        //then - verify the output
+        assertThat(concurrencyLimiter.getInFlight()).isZero();
+        assertThat(concurrencyLimiter.getLimit()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for mapping requests to endpoints without ids or query strings")
+    @Test
+    public void givenRequests_whenEndpoint_thenRouteTemplate(){
+        //given - precondition or setup
+        MockHttpServletRequest paged = request("GET", "/api/employees", "10.0.0.1");
+        paged.setParameter("limit", "50");
+        MockHttpServletRequest sync = request("GET", "/api/employees", "10.0.0.1");
+        sync.setParameter("modifiedSince", "42");
+
+        //when - action or the behaviour that we are going to test
+        //then - verify the output
+        assertThat(EmployeeRateLimitFilter.endpoint(request("GET", "/api/employees", "10.0.0.1"))).isEqualTo("GET /api/employees");
+        assertThat(EmployeeRateLimitFilter.endpoint(paged)).isEqualTo("GET /api/employees?limit");
+        assertThat(EmployeeRateLimitFilter.endpoint(sync)).isEqualTo("GET /api/employees?modifiedSince");
+        assertThat(EmployeeRateLimitFilter.endpoint(request("DELETE", "/api/employees/42", "10.0.0.1"))).isEqualTo("DELETE /api/employees/{id}");
+        assertThat(EmployeeRateLimitFilter.endpoint(request("GET", "/api/employees/stream", "10.0.0.1"))).isEqualTo("GET /api/employees/stream");
+        assertThat(EmployeeRateLimitFilter.endpoint(request("GET", "/api/employees/unknown", "10.0.0.1"))).isEqualTo("GET /api/employees/**");
+        assertThat(EmployeeRateLimitFilter.endpoint(request("GET", "/api/employees/changes/stream", "10.0.0.1"))).isEqualTo("GET /api/employees/changes/stream");
+        assertThat(EmployeeRateLimitFilter.isLongLived("GET /api/employees/changes/stream")).isTrue();
+        assertThat(EmployeeRateLimitFilter.isLongLived("GET /api/employees/changes")).isFalse();
+        assertThat(EmployeeRateLimitFilter.isFullTable("GET /api/employees/stream")).isTrue();
+        assertThat(EmployeeRateLimitFilter.isFullTable("GET /api/employees?limit")).isFalse();
+        assertThat(EmployeeRateLimitFilter.isSlowByDesign("GET /api/employees")).isTrue();
+        assertThat(EmployeeRateLimitFilter.isSlowByDesign("POST /api/employees/batch")).isTrue();
+        assertThat(EmployeeRateLimitFilter.isSlowByDesign("GET /api/employees?limit")).isFalse();
+    }
+
+    private MockHttpServletResponse send(String method, String uri, String client) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, uri, client), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(client);
+        return request;
+    }
+
+    private double decisions(String endpoint, String limiter, String outcome) {
+        return meterRegistry.get(EmployeeRateLimitFilter.DECISIONS)
+                .tag("endpoint", endpoint).tag("limiter", limiter).tag("outcome", outcome)
+                .counter().count();
+    }
+}
@@ -0,0 +1,130 @@
+package com.toutsos.springboot.repository;
+
+import com.toutsos.springboot.integration.AbstractContainerBaseTest;
+import com.toutsos.springboot.model.Employee;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Runs EXPLAIN on the SQL each finder really sends to MySQL and fails when one of them
+// stops using an index (a full scan shows up as type ALL with no key)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.toutsos.springboot.repository.EmployeeRepositoryQueryPlanITests$CapturedStatements")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class EmployeeRepositoryQueryPlanITests extends AbstractContainerBaseTest {
+
+    //with a handful of rows the optimizer may scan anyway, so give it a real table
+    private static final int EMPLOYEES = 500;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup(){
+        List<Employee> employees = new ArrayList<>(EMPLOYEES);
+        for (int n = 0; n < EMPLOYEES; n++){
+            employees.add(Employee.builder()
+                    .firstName("First"+n)
+                    .lastName("Last"+(n % 50))
+                    .email("employee"+n+"@gmail.com")
+                    .build());
+        }
+        employeeRepository.saveAllAndFlush(employees);
+        employee = employees.get(EMPLOYEES / 2);
+    }
+
+    @Test
+    public void givenEmail_whenFindByEmail_thenUseIndex(){
+        assertUsesIndex(() -> employeeRepository.findByEmail(employee.getEmail()), employee.getEmail());
+    }
+
+    @Test
+    public void givenEmails_whenFindExistingEmails_thenUseIndex(){
+        assertUsesIndex(() -> employeeRepository.findExistingEmails(List.of(employee.getEmail())), employee.getEmail());
+    }
+
+    @Test
+    public void givenNames_whenFindByJPQL_thenUseIndex(){
+        assertUsesIndex(() -> employeeRepository.findByJPQL(employee.getFirstName(), employee.getLastName()),
+                employee.getFirstName(), employee.getLastName());
+    }
+
+    @Test
+    public void givenNames_whenFindByJPQLNamedParams_thenUseIndex(){
+        assertUsesIndex(() -> employeeRepository.findByJPQLNamedParams(employee.getFirstName(), employee.getLastName()),
+                employee.getFirstName(), employee.getLastName());
+    }
+
+    @Test
+    public void givenNames_whenFindByNativeSQL_thenUseIndex(){
+        assertUsesIndex(() -> employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName()),
+                employee.getFirstName(), employee.getLastName());
+    }
+
+    @Test
+    public void givenNames_whenFindByNativeSQLNamedParams_thenUseIndex(){
+        assertUsesIndex(() -> employeeRepository.findByNativeSQLNamedParams(employee.getFirstName(), employee.getLastName()),
+                employee.getFirstName(), employee.getLastName());
+    }
+
+    //parameters in the order their placeholders appear in the generated SQL
+    private void assertUsesIndex(Runnable finder, Object... parameters){
+        //given - precondition or setup
+        CapturedStatements.clear();
+
+        //when - action or the behaviour that we are going to test
+        finder.run();
+        String sql = CapturedStatements.lastSelect();
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("explain " + sql, parameters);
+
+        //then - verify the output
+        assertThat(plan).as("plan of %s", sql).isNotEmpty();
+        for (Map<String, Object> row : plan){
+            assertThat(row.get("type")).as("access type of %s in %s", row.get("table"), sql).isNotEqualTo("ALL");
+            assertThat(row.get("key")).as("index of %s in %s", row.get("table"), sql).isNotNull();
+        }
+    }
+
+    //Hibernate hands every SQL statement to this inspector before preparing it
+    public static class CapturedStatements implements StatementInspector {
+
+        private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+
+        static void clear(){
+            STATEMENTS.clear();
+        }
+
+        static String lastSelect(){
+            synchronized (STATEMENTS){
+                for (int i = STATEMENTS.size() - 1; i >= 0; i--){
+                    if (STATEMENTS.get(i).trim().toLowerCase().startsWith("select")){
+                        return STATEMENTS.get(i);
+                    }
+                }
+            }
+            throw new AssertionError("no select was sent, captured " + STATEMENTS);
+        }
+    }
+}
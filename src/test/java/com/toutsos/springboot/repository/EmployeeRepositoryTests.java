@@ -7,6 +7,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +19,9 @@ public class EmployeeRepositoryTests {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private Employee employee;
     @BeforeEach
     public void setup(){
@@ -221,4 +226,61 @@ public class EmployeeRepositoryTests {
         //then - verify the output
         assertThat(employeeDB).isNotNull();
     }
+
+
+    //JUnit test for the detached read model by id
+    @Test
+    public void givenSavedEmployee_whenFindDetachedById_thenReturnUnmanagedEmployee(){
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour that we are going test
+        Employee employeeDB = employeeRepository.findDetachedById(employee.getId()).get();
+
+        //then - verify the output
+        assertThat(employeeDB).isNotSameAs(employee);
+        assertThat(employeeDB.getEmail()).isEqualTo(employee.getEmail());
+        assertThat(entityManager.getEntityManager().contains(employeeDB)).isFalse();
+    }
+
+    //JUnit test for the detached read model of the native finder
+    @Test
+    public void givenSavedEmployee_whenFindByNativeSQL_thenReturnUnmanagedEmployee(){
+        //given - precondition or setup
+        employeeRepository.save(employee);
+
+        //when - action or the behaviour that we are going test
+        Employee employeeDB = employeeRepository.findByNativeSQL(employee.getFirstName(), employee.getLastName());
+
+        //then - verify the output
+        assertThat(employeeDB.getId()).isEqualTo(employee.getId());
+        assertThat(entityManager.getEntityManager().contains(employeeDB)).isFalse();
+    }
+
+    //JUnit test for the detached keyset page
+    @Test
+    public void givenEmployeesList_whenFindDetachedByIdGreaterThan_thenReturnNextPageInIdOrder(){
+        //given - precondition or setup
+        Employee employee1 = Employee.builder()
+                .firstName("John")
+                .lastName("Cena")
+                .email("cena@gmail.com")
+                .build();
+        Employee employee2 = Employee.builder()
+                .firstName("Maria")
+                .lastName("Kontouri")
+                .email("maria@gmail.com")
+                .build();
+        employeeRepository.save(employee);
+        employeeRepository.save(employee1);
+        employeeRepository.save(employee2);
+
+        //when - action or the behaviour that we are going test
+        List<Employee> employeeList = employeeRepository.findDetachedByIdGreaterThan(employee.getId(), PageRequest.of(0, 1));
+
+        //then - verify the output
+        assertThat(employeeList).extracting(Employee::getEmail).containsExactly("cena@gmail.com");
+        assertThat(entityManager.getEntityManager().contains(employeeList.get(0))).isFalse();
+    }
+
 }
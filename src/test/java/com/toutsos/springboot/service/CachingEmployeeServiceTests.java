@@ -0,0 +1,190 @@
+package com.toutsos.springboot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeJson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingEmployeeServiceTests {
+
+    @Mock
+    private EmployeeService employeeService;
+
+    private AtomicLong nanos;
+
+    private CachingEmployeeService cachingEmployeeService;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup(){
+        nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        cachingEmployeeService = new CachingEmployeeService(employeeService, new ObjectMapper(), 100,
+                Duration.ofMinutes(10), Duration.ofSeconds(30), 1024 * 1024, ticker);
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .build();
+    }
+
+    @DisplayName("JUnit test for getEmployeeById served from the cache")
+    @Test
+    public void givenCachedEmployee_whenGetEmployeeById_thenLoadOnce(){
+        //given - precondition or setup
+        given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.getEmployeeById(1L);
+        Optional<Employee> cachedEmployee = cachingEmployeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(cachedEmployee.get().getEmail()).isEqualTo(employee.getEmail());
+        assertThat(cachedEmployee.get()).isNotSameAs(employee);
+        verify(employeeService, times(1)).getEmployeeById(1L);
+        assertThat(cachingEmployeeService.getCacheStats().hitCount()).isEqualTo(1);
+        assertThat(cachingEmployeeService.getCacheStats().missCount()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for getEmployeeById caching missing ids until the negative ttl")
+    @Test
+    public void givenMissingEmployee_whenGetEmployeeById_thenCacheUntilNegativeTtl(){
+        //given - precondition or setup
+        given(employeeService.getEmployeeById(2L)).willReturn(Optional.empty());
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.getEmployeeById(2L);
+        cachingEmployeeService.getEmployeeById(2L);
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+        Optional<Employee> missingEmployee = cachingEmployeeService.getEmployeeById(2L);
+
+        //then - verify the output
+        assertThat(missingEmployee).isEmpty();
+        verify(employeeService, times(2)).getEmployeeById(2L);
+    }
+
+    @DisplayName("JUnit test for updateEmployee dropping the cached employee")
+    @Test
+    public void givenCachedEmployee_whenUpdateEmployee_thenLoadUpdatedEmployee(){
+        //given - precondition or setup
+        Employee updatedEmployee = employee.toBuilder().email("updated@gmail.com").build();
+        given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee), Optional.of(updatedEmployee));
+        given(employeeService.updateEmployee(eq(1L), any(Employee.class))).willReturn(Optional.of(updatedEmployee));
+        cachingEmployeeService.getEmployeeById(1L);
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.updateEmployee(1L, updatedEmployee);
+        Optional<Employee> cachedEmployee = cachingEmployeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(cachedEmployee.get().getEmail()).isEqualTo("updated@gmail.com");
+        verify(employeeService, times(2)).getEmployeeById(1L);
+    }
+
+    @DisplayName("JUnit test for deleteEmployee dropping the cached employee")
+    @Test
+    public void givenCachedEmployee_whenDeleteEmployee_thenLoadAgain(){
+        //given - precondition or setup
+        given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee), Optional.empty());
+        cachingEmployeeService.getEmployeeById(1L);
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.deleteEmployee(1L);
+        Optional<Employee> deletedEmployee = cachingEmployeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(deletedEmployee).isEmpty();
+        verify(employeeService, times(1)).deleteEmployee(1L);
+        verify(employeeService, times(2)).getEmployeeById(1L);
+    }
+
+
+    @DisplayName("JUnit test for getEmployeeJson serializing an employee once")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeJsonTwice_thenServeSameBytes(){
+        //given - precondition or setup
+        given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour that we are going to test
+        EmployeeJson first = cachingEmployeeService.getEmployeeJson(1L).get();
+        EmployeeJson second = cachingEmployeeService.getEmployeeJson(1L).get();
+
+        //then - verify the output
+        assertThat(second.getBytes()).isSameAs(first.getBytes());
+        assertThat(new String(first.getBytes())).contains("angelos.toutsios@gmail.com");
+        verify(employeeService, times(1)).getEmployeeById(1L);
+    }
+
+    @DisplayName("JUnit test for updateEmployee dropping the cached JSON")
+    @Test
+    public void givenCachedJson_whenUpdateEmployee_thenSerializeUpdatedEmployee(){
+        //given - precondition or setup
+        Employee updatedEmployee = employee.toBuilder().email("updated@gmail.com").version(1L).build();
+        given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee), Optional.of(updatedEmployee));
+        given(employeeService.updateEmployee(eq(1L), any(Employee.class))).willReturn(Optional.of(updatedEmployee));
+        EmployeeJson before = cachingEmployeeService.getEmployeeJson(1L).get();
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.updateEmployee(1L, updatedEmployee);
+        EmployeeJson after = cachingEmployeeService.getEmployeeJson(1L).get();
+
+        //then - verify the output
+        assertThat(new String(after.getBytes())).contains("updated@gmail.com");
+        assertThat(after.getEtag()).isNotEqualTo(before.getEtag());
+    }
+
+    @DisplayName("JUnit test for getEmployeeJson not caching missing employees as JSON")
+    @Test
+    public void givenMissingEmployee_whenGetEmployeeJson_thenReturnEmpty(){
+        //given - precondition or setup
+        given(employeeService.getEmployeeById(2L)).willReturn(Optional.empty());
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.getEmployeeJson(2L);
+        Optional<EmployeeJson> missing = cachingEmployeeService.getEmployeeJson(2L);
+
+        //then - verify the output
+        assertThat(missing).isEmpty();
+        verify(employeeService, times(1)).getEmployeeById(2L);
+    }
+
+
+    @DisplayName("JUnit test for deleteEmployees dropping every cached employee it was given")
+    @Test
+    public void givenCachedEmployees_whenDeleteEmployees_thenLoadAgain(){
+        //given - precondition or setup
+        given(employeeService.getEmployeeById(1L)).willReturn(Optional.of(employee), Optional.empty());
+        cachingEmployeeService.getEmployeeById(1L);
+
+        //when - action or the behaviour that we are going to test
+        cachingEmployeeService.deleteEmployees(List.of(1L, 2L));
+        Optional<Employee> deletedEmployee = cachingEmployeeService.getEmployeeById(1L);
+
+        //then - verify the output
+        assertThat(deletedEmployee).isEmpty();
+        verify(employeeService, times(1)).deleteEmployees(List.of(1L, 2L));
+        verify(employeeService, times(2)).getEmployeeById(1L);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.toutsos.springboot.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmployeeEmailIndexTests {
+
+    private EmployeeEmailIndex employeeEmailIndex;
+
+    @BeforeEach
+    public void setup(){
+        employeeEmailIndex = new EmployeeEmailIndex();
+        employeeEmailIndex.put(1L, "angelos.toutsios@gmail.com");
+    }
+
+    @DisplayName("JUnit test for mightContain ignoring the email case")
+    @Test
+    public void givenIndexedEmail_whenMightContain_thenIgnoreCase(){
+        //when - action or the behaviour that we are going to test
+        boolean contains = employeeEmailIndex.mightContain("Angelos.Toutsios@gmail.com");
+
+        //then - verify the output
+        assertThat(contains).isTrue();
+        assertThat(employeeEmailIndex.mightContain("maria@gmail.com")).isFalse();
+    }
+
+    @DisplayName("JUnit test for put replacing the old email of an employee")
+    @Test
+    public void givenChangedEmail_whenPut_thenForgetOldEmail(){
+        //when - action or the behaviour that we are going to test
+        employeeEmailIndex.put(1L, "angelos@gmail.com");
+
+        //then - verify the output
+        assertThat(employeeEmailIndex.mightContain("angelos.toutsios@gmail.com")).isFalse();
+        assertThat(employeeEmailIndex.mightContain("angelos@gmail.com")).isTrue();
+        assertThat(employeeEmailIndex.size()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for remove dropping the email of an employee")
+    @Test
+    public void givenIndexedEmployee_whenRemove_thenForgetEmail(){
+        //when - action or the behaviour that we are going to test
+        employeeEmailIndex.remove(1L);
+
+        //then - verify the output
+        assertThat(employeeEmailIndex.mightContain("angelos.toutsios@gmail.com")).isFalse();
+        assertThat(employeeEmailIndex.size()).isEqualTo(0);
+    }
+
+
+    @DisplayName("JUnit test for put ignoring an older version than the indexed one")
+    @Test
+    public void givenNewerVersionIndexed_whenPutOlderVersion_thenKeepNewerEmail(){
+        //given - precondition or setup
+        employeeEmailIndex.put(1L, "angelos@gmail.com", 3L);
+
+        //when - action or the behaviour that we are going to test
+        employeeEmailIndex.put(1L, "angelos.old@gmail.com", 2L);
+
+        //then - verify the output
+        assertThat(employeeEmailIndex.mightContain("angelos@gmail.com")).isTrue();
+        assertThat(employeeEmailIndex.mightContain("angelos.old@gmail.com")).isFalse();
+        assertThat(employeeEmailIndex.size()).isEqualTo(1);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.toutsos.springboot.service;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeSearchPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmployeeSearchIndexTests {
+
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @BeforeEach
+    public void setup(){
+        employeeSearchIndex = new EmployeeSearchIndex();
+        employeeSearchIndex.put(Employee.builder().id(1L).firstName("Angelos").lastName("Toutsios").email("angelos.toutsios@gmail.com").build());
+        employeeSearchIndex.put(Employee.builder().id(2L).firstName("Angela").lastName("Kontouri").email("angela@gmail.com").build());
+        employeeSearchIndex.put(Employee.builder().id(3L).firstName("Maria").lastName("Angelopoulou").email("maria@yahoo.com").build());
+    }
+
+    @DisplayName("JUnit test for search matching word prefixes across every field")
+    @Test
+    public void givenPrefix_whenSearch_thenReturnEmployeesWithMatchingWords(){
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage result = employeeSearchIndex.search("ange", 0, 10);
+
+        //then - verify the output
+        assertThat(result.getTotal()).isEqualTo(3);
+        //the closer the prefix is to the whole word, the better the match
+        assertThat(result.getContent()).extracting(Employee::getId).containsExactly(2L, 1L, 3L);
+    }
+
+    @DisplayName("JUnit test for search tolerating a typo")
+    @Test
+    public void givenTypo_whenSearch_thenReturnClosestEmployee(){
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage result = employeeSearchIndex.search("toutsois", 0, 10);
+
+        //then - verify the output
+        assertThat(result.getContent()).extracting(Employee::getId).containsExactly(1L);
+    }
+
+    @DisplayName("JUnit test for search requiring every query word to match")
+    @Test
+    public void givenSeveralWords_whenSearch_thenRankExactMatchesFirst(){
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage result = employeeSearchIndex.search("Angela gmail", 0, 10);
+
+        //then - verify the output
+        assertThat(result.getContent()).extracting(Employee::getId).containsExactly(2L, 1L);
+    }
+
+    @DisplayName("JUnit test for search paging through the ranked matches")
+    @Test
+    public void givenSecondPage_whenSearch_thenSkipFirstPage(){
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage result = employeeSearchIndex.search("ange", 1, 2);
+
+        //then - verify the output
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getContent()).extracting(Employee::getId).containsExactly(3L);
+    }
+
+    @DisplayName("JUnit test for put and remove keeping the index current")
+    @Test
+    public void givenUpdatedAndDeletedEmployees_whenSearch_thenOnlyCurrentValuesMatch(){
+        //given - precondition or setup
+        employeeSearchIndex.put(Employee.builder().id(1L).firstName("Angelos").lastName("Papadopoulos").email("angelos@gmail.com").build());
+        employeeSearchIndex.remove(2L);
+
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage oldName = employeeSearchIndex.search("toutsios", 0, 10);
+        EmployeeSearchPage newName = employeeSearchIndex.search("papadopoulos", 0, 10);
+
+        //then - verify the output
+        assertThat(oldName.getTotal()).isZero();
+        assertThat(newName.getContent()).extracting(Employee::getLastName).containsExactly("Papadopoulos");
+        assertThat(employeeSearchIndex.search("kontouri", 0, 10).getTotal()).isZero();
+        assertThat(employeeSearchIndex.size()).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for search with a page far past the last match")
+    @Test
+    public void givenPageFarPastTheEnd_whenSearch_thenReturnEmptyPage(){
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage result = employeeSearchIndex.search("ange", Integer.MAX_VALUE / 2, 100);
+
+        //then - verify the output
+        assertThat(result.getContent()).isEmpty();
+        assertThat(result.getTotal()).isEqualTo(3);
+    }
+
+
+    @DisplayName("JUnit test for put ignoring an older version than the indexed one")
+    @Test
+    public void givenNewerVersionIndexed_whenPutOlderVersion_thenOnlyNewerValuesMatch(){
+        //given - precondition or setup
+        employeeSearchIndex.put(Employee.builder().id(1L).version(3L).firstName("Angelos").lastName("Papadopoulos").email("angelos@gmail.com").build());
+
+        //when - action or the behaviour that we are going to test
+        employeeSearchIndex.put(Employee.builder().id(1L).version(2L).firstName("Angelos").lastName("Toutsios").email("angelos.toutsios@gmail.com").build());
+
+        //then - verify the output
+        assertThat(employeeSearchIndex.search("Papadopoulos", 0, 10).getContent()).extracting(Employee::getId).containsExactly(1L);
+        assertThat(employeeSearchIndex.search("Toutsios", 0, 10).getContent()).isEmpty();
+    }
+
+}
@@ -1,8 +1,17 @@
 package com.toutsos.springboot.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toutsos.springboot.changes.EmployeeChangeLog;
+import com.toutsos.springboot.exception.BadRequestException;
 import com.toutsos.springboot.exception.ResourceNotFoundException;
 import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.model.EmployeeBatchResult;
+import com.toutsos.springboot.model.EmployeeChange;
+import com.toutsos.springboot.model.EmployeeJson;
+import com.toutsos.springboot.model.EmployeePage;
+import com.toutsos.springboot.model.EmployeeSearchPage;
 import com.toutsos.springboot.repository.EmployeeRepository;
+import com.toutsos.springboot.writebehind.EmployeeUpdatesDroppedEvent;
 
 import static org.assertj.core.api.Assertions.as;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -13,24 +22,47 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.BDDMockito.willDoNothing;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.*;
 
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @ExtendWith(MockitoExtension.class)
 public class EmployeeServiceTests {
 
     @Mock
     private EmployeeRepository employeeRepository;
+    @Mock
+    private EmployeeEmailIndex employeeEmailIndex;
+    @Mock
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Mock
+    private ObjectMapper objectMapper;
      @InjectMocks
     private EmployeeServiceImpl employeeService;
 
@@ -101,7 +133,7 @@ public class EmployeeServiceTests {
                 .email("angelos2.toutsios@gmail.com")
                 .build();
 
-        given(employeeRepository.findAll())
+        given(employeeRepository.findAllDetached())
                 .willReturn(List.of(employee,employee1));
 
         //when - action or the behaviour that we are going to test
@@ -118,7 +150,7 @@ public class EmployeeServiceTests {
     public void givenEmptyloyeesList_whenGetAllEmployess_thenReturnEmptyList() {
         //given - precondition or setup
 
-        given(employeeRepository.findAll())
+        given(employeeRepository.findAllDetached())
                 .willReturn(Collections.emptyList());
 
         //when - action or the behaviour that we are going to test
@@ -134,7 +166,7 @@ public class EmployeeServiceTests {
     @Test
     public void givenEmployeeId_whenGetEmployeeById_thenReturnEmployee() {
         //given - precondition or setup
-        given(employeeRepository.findById(employee.getId()))
+        given(employeeRepository.findDetachedById(employee.getId()))
                 .willReturn(Optional.of(employee));
 
         //when - action or the behaviour that we are going to test
@@ -150,19 +182,23 @@ public class EmployeeServiceTests {
     @Test
     public void givenUpdatedEmployee_whenUpdateEmployeeMethod_thenReturnUpdatedEmployee() {
         //given - precondition or setup
-        given(employeeRepository.save(employee)).willReturn(employee);
         employee.setEmail("updatedEmail");
         employee.setFirstName("updatedFirstname");
         employee.setLastName("updatedLastname");
+        given(employeeRepository.updateById(1L, "updatedFirstname", "updatedLastname", "updatedEmail", null))
+                .willReturn(1);
+        given(employeeRepository.findVersionById(1L)).willReturn(Optional.of(5L));
 
 
         //when - action or the behaviour that we are going to test
-        Employee updatedEmployee = employeeService.updateEmployee(employee);
+        Employee updatedEmployee = employeeService.updateEmployee(employee.getId(), employee).get();
 
         //then - verify the output
         assertThat(updatedEmployee.getEmail()).isEqualTo("updatedEmail");
         assertThat(updatedEmployee.getFirstName()).isEqualTo("updatedFirstname");
         assertThat(updatedEmployee.getLastName()).isEqualTo("updatedLastname");
+        //an update without a version is unconditional and answers with the version it stored
+        assertThat(updatedEmployee.getVersion()).isEqualTo(5L);
     }
 
     //JUnit test for deleteEmployee method
@@ -170,16 +206,532 @@ public class EmployeeServiceTests {
     @Test
     public void givenEmployeeId_whenDeleteById_thenNothing() {
         //given - precondition or setup
-        // this is how to stub a method that returns VOID
-        willDoNothing().given(employeeRepository).deleteById(employee.getId());
+        given(employeeRepository.deleteRowById(employee.getId())).willReturn(1);
+
+        //when - action or the behaviour that we are going to test
+        boolean deleted = employeeService.deleteEmployee(employee.getId());
+
+        //then - verify the output
+        assertThat(deleted).isTrue();
+        verify(employeeRepository, times(1)).deleteRowById(employee.getId());
+        verify(employeeRepository, never()).findById(any());
+
+    }
+
+    //JUnit test for getEmployeesPage method
+    @DisplayName("JUNit test getEmployeesPage method")
+    @Test
+    public void givenMoreRowsThanLimit_whenGetEmployeesPage_thenReturnPageWithNextCursor() {
+        //given - precondition or setup
+        Employee employee1 = Employee.builder().id(2L).firstName("Angelos2").lastName("Toutsios2").email("angelos2.toutsios@gmail.com").build();
+        Employee employee2 = Employee.builder().id(3L).firstName("Angelos3").lastName("Toutsios3").email("angelos3.toutsios@gmail.com").build();
+        given(employeeRepository.findDetachedByIdGreaterThan(0L, PageRequest.of(0, 3)))
+                .willReturn(List.of(employee, employee1, employee2));
+
+        //when - action or the behaviour that we are going to test
+        EmployeePage page = employeeService.getEmployeesPage(null, 2);
+
+        //then - verify the output
+        assertThat(page.getContent()).containsExactly(employee, employee1);
+        assertThat(page.getNext()).isEqualTo(2L);
+    }
+
+    //JUnit test for getEmployeesPage method on the last page
+    @DisplayName("JUNit test getEmployeesPage method on the last page")
+    @Test
+    public void givenFewerRowsThanLimit_whenGetEmployeesPage_thenReturnPageWithoutNextCursor() {
+        //given - precondition or setup
+        given(employeeRepository.findDetachedByIdGreaterThan(1L, PageRequest.of(0, 3)))
+                .willReturn(List.of(employee));
+
+        //when - action or the behaviour that we are going to test
+        EmployeePage page = employeeService.getEmployeesPage(1L, 2);
+
+        //then - verify the output
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getNext()).isNull();
+    }
+
+    //JUnit test for saveEmployees method
+    @DisplayName("JUNit test saveEmployees method with duplicates")
+    @Test
+    public void givenBatchWithDuplicates_whenSaveEmployees_thenInsertOnlyNewEmployees() {
+        //given - precondition or setup
+        Employee newEmployee = Employee.builder().firstName("Maria").lastName("Kontouri").email("maria@gmail.com").build();
+        Employee repeatedEmployee = Employee.builder().firstName("Maria").lastName("Kontouri").email("MARIA@gmail.com").build();
+        given(employeeRepository.findExistingEmails(any()))
+                .willReturn(List.of(employee.getEmail()));
+        willAnswer(invocation -> {
+            List<Employee> inserted = invocation.getArgument(0);
+            inserted.forEach(e -> e.setId(10L));
+            return null;
+        }).given(employeeRepository).insertAll(any());
+
+        //when - action or the behaviour that we are going to test
+        List<EmployeeBatchResult> results = employeeService.saveEmployees(List.of(employee, newEmployee, repeatedEmployee));
+
+        //then - verify the output
+        assertThat(results).extracting(EmployeeBatchResult::getStatus).containsExactly(
+                EmployeeBatchResult.Status.DUPLICATE, EmployeeBatchResult.Status.CREATED, EmployeeBatchResult.Status.DUPLICATE);
+        assertThat(results.get(1).getId()).isEqualTo(10L);
+        verify(employeeRepository, times(1)).insertAll(List.of(newEmployee));
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    //JUnit test for saveEmployee method with a warm email index
+    @DisplayName("JUNit test saveEmployee method skipping the database duplicate check")
+    @Test
+    public void givenWarmIndexWithoutEmail_whenSaveEmployee_thenSkipFindByEmail() {
+        //given - precondition or setup
+        given(employeeEmailIndex.isWarm()).willReturn(true);
+        given(employeeEmailIndex.mightContain(employee.getEmail())).willReturn(false);
+        given(employeeRepository.save(employee)).willReturn(employee);
+
+        //when - action or the behaviour that we are going to test
+        Employee savedEmployee = employeeService.saveEmployee(employee);
+
+        //then - verify the output
+        assertThat(savedEmployee).isNotNull();
+        verify(employeeRepository, never()).findByEmail(any());
+        verify(employeeEmailIndex, times(1)).put(employee.getId(), employee.getEmail(), employee.getVersion());
+    }
+
+    //JUnit test for saveEmployee method when the index knows the email
+    @DisplayName("JUNit test saveEmployee method confirming an index hit against the database")
+    @Test
+    public void givenWarmIndexWithEmail_whenSaveEmployee_thenConfirmWithDatabase() {
+        //given - precondition or setup
+        given(employeeEmailIndex.isWarm()).willReturn(true);
+        given(employeeEmailIndex.mightContain(employee.getEmail())).willReturn(true);
+        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour that we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class,()->{
+            employeeService.saveEmployee(employee);
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    //JUnit test for saveEmployee method losing a race on the unique email key
+    @DisplayName("JUNit test saveEmployee method translating a unique key violation")
+    @Test
+    public void givenConcurrentInsert_whenSaveEmployee_thenThrowsException() {
+        //given - precondition or setup
+        given(employeeEmailIndex.isWarm()).willReturn(true);
+        given(employeeEmailIndex.mightContain(employee.getEmail())).willReturn(false);
+        given(employeeRepository.save(employee)).willThrow(new DataIntegrityViolationException(
+                "Duplicate entry 'angelos.toutsios@gmail.com' for key 'employees.ux_employees_email'"));
+
+        //when - action or the behaviour that we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(ResourceNotFoundException.class,()->{
+            employeeService.saveEmployee(employee);
+        });
+
+        //then - verify the output
+        verify(employeeEmailIndex, never()).put(anyLong(), any(), any());
+    }
+
+    //JUnit test for updateEmployee method with a stale version
+    @DisplayName("JUNit test updateEmployee method with a stale version")
+    @Test
+    public void givenStaleVersion_whenUpdateEmployee_thenThrowsOptimisticLockingFailure() {
+        //given - precondition or setup
+        employee.setVersion(3L);
+        given(employeeRepository.updateById(1L, employee.getFirstName(), employee.getLastName(), employee.getEmail(), 3L))
+                .willReturn(0);
+        given(employeeRepository.existsById(1L)).willReturn(true);
+
+        //when - action or the behaviour that we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(ObjectOptimisticLockingFailureException.class,()->{
+            employeeService.updateEmployee(1L, employee);
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).save(any(Employee.class));
+    }
+
+    //JUnit test for updateEmployee method with an unknown id
+    @DisplayName("JUNit test updateEmployee method with an unknown id")
+    @Test
+    public void givenUnknownId_whenUpdateEmployee_thenReturnEmpty() {
+        //given - precondition or setup
+        given(employeeRepository.updateById(2L, employee.getFirstName(), employee.getLastName(), employee.getEmail(), null))
+                .willReturn(0);
+
+        //when - action or the behaviour that we are going to test
+        Optional<Employee> updatedEmployee = employeeService.updateEmployee(2L, employee);
+
+        //then - verify the output
+        assertThat(updatedEmployee).isEmpty();
+        verify(employeeRepository, never()).existsById(any());
+    }
+
+    //JUnit test for updateEmployee method returning the next version
+    @DisplayName("JUNit test updateEmployee method returning the next version")
+    @Test
+    public void givenCurrentVersion_whenUpdateEmployee_thenReturnNextVersion() {
+        //given - precondition or setup
+        employee.setVersion(3L);
+        given(employeeRepository.updateById(1L, employee.getFirstName(), employee.getLastName(), employee.getEmail(), 3L))
+                .willReturn(1);
+
+        //when - action or the behaviour that we are going to test
+        Employee updatedEmployee = employeeService.updateEmployee(1L, employee).get();
+
+        //then - verify the output
+        assertThat(updatedEmployee.getVersion()).isEqualTo(4L);
+        verify(employeeRepository, never()).findById(any());
+    }
+
+    //JUnit test for patchEmployee method
+    @DisplayName("JUNit test patchEmployee method changes only the supplied fields")
+    @Test
+    public void givenEmailPatch_whenPatchEmployee_thenOnlyEmailChanges() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
+
+        //when - action or the behaviour that we are going to test
+        Employee patchedEmployee = employeeService.patchEmployee(1L, Map.of("email", "angelos@gmail.com")).get();
+
+        //then - verify the output
+        assertThat(patchedEmployee.getEmail()).isEqualTo("angelos@gmail.com");
+        assertThat(patchedEmployee.getFirstName()).isEqualTo("Angelos");
+        assertThat(patchedEmployee.getLastName()).isEqualTo("Toutsios");
+        verify(employeeEmailIndex).put(eq(1L), eq("angelos@gmail.com"), any());
+    }
+
+    //JUnit test for patchEmployee method with the read-only updatedAt of a GET response
+    @DisplayName("JUNit test patchEmployee method ignores updatedAt")
+    @Test
+    public void givenUpdatedAtInPatch_whenPatchEmployee_thenIgnoreIt() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        given(employeeRepository.saveAndFlush(employee)).willReturn(employee);
+
+        //when - action or the behaviour that we are going to test
+        Employee patchedEmployee = employeeService.patchEmployee(1L,
+                Map.of("lastName", "Toutsos", "updatedAt", "2022-09-01T10:00:00Z")).get();
+
+        //then - verify the output
+        assertThat(patchedEmployee.getLastName()).isEqualTo("Toutsos");
+        assertThat(patchedEmployee.getUpdatedAt()).isNull();
+    }
+
+    //JUnit test for patchEmployee method removing a required field
+    @DisplayName("JUNit test patchEmployee method rejects a null required field")
+    @Test
+    public void givenNullFirstName_whenPatchEmployee_thenThrowsBadRequest() {
+        //given - precondition or setup
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+        Map<String, Object> patch = new HashMap<>();
+        patch.put("firstName", null);
+
+        //when - action or the behaviour that we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class,()->{
+            employeeService.patchEmployee(1L, patch);
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).saveAndFlush(any(Employee.class));
+    }
+
+    //JUnit test for updateEmployee method without a required field
+    @DisplayName("JUNit test updateEmployee method rejects a null required field")
+    @Test
+    public void givenNullEmail_whenUpdateEmployee_thenThrowsBadRequest() {
+        //given - precondition or setup
+        Employee update = employee.toBuilder().email(null).build();
 
         //when - action or the behaviour that we are going to test
-        employeeService.deleteEmployee(employee.getId());
+        org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class,()->{
+            employeeService.updateEmployee(1L, update);
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).updateById(anyLong(), any(), any(), any(), any());
+    }
+
+    //JUnit test for patchEmployee method with a stale version
+    @DisplayName("JUNit test patchEmployee method with a stale version")
+    @Test
+    public void givenStaleVersion_whenPatchEmployee_thenThrowsOptimisticLockingFailure() {
+        //given - precondition or setup
+        employee.setVersion(4L);
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(employee));
+
+        //when - action or the behaviour that we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(ObjectOptimisticLockingFailureException.class,()->{
+            employeeService.patchEmployee(1L, Map.of("lastName", "Toutsos", "version", 3));
+        });
+
+        //then - verify the output
+        assertThat(employee.getLastName()).isEqualTo("Toutsios");
+        verify(employeeRepository, never()).saveAndFlush(any(Employee.class));
+    }
+
+    //JUnit test for keeping the search index current on a save
+    @DisplayName("JUNit test saveEmployee method indexes the saved employee for search")
+    @Test
+    public void givenNewEmployee_whenSaveEmployee_thenIndexForSearch() {
+        //given - precondition or setup
+        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.empty());
+        given(employeeRepository.save(employee)).willReturn(employee);
+
+        //when - action or the behaviour that we are going to test
+        employeeService.saveEmployee(employee);
+
+        //then - verify the output
+        verify(employeeSearchIndex).put(employee);
+    }
+
+    //JUnit test for keeping the indexes out of a transaction that has not committed yet
+    @DisplayName("JUNit test saveEmployee method indexes the employee once the caller's transaction committed")
+    @Test
+    public void givenCallerTransaction_whenSaveEmployee_thenIndexAfterCommit() {
+        //given - precondition or setup
+        given(employeeRepository.findByEmail(employee.getEmail())).willReturn(Optional.empty());
+        given(employeeRepository.save(employee)).willReturn(employee);
+        TransactionSynchronizationManager.initSynchronization();
+
+        //when - action or the behaviour that we are going to test
+        try {
+            employeeService.saveEmployee(employee);
+            verify(employeeSearchIndex, never()).put(any(Employee.class));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //then - verify the output
+        verify(employeeSearchIndex).put(employee);
+        verify(employeeEmailIndex).put(employee.getId(), employee.getEmail(), employee.getVersion());
+    }
+
+    //JUnit test for searchEmployees method
+    @DisplayName("JUNit test searchEmployees method caps the page size")
+    @Test
+    public void givenHugePageSize_whenSearchEmployees_thenCapPageSize() {
+        //given - precondition or setup
+        EmployeeSearchPage page = new EmployeeSearchPage(List.of(employee), 0, EmployeeServiceImpl.MAX_SEARCH_PAGE_SIZE, 1);
+        given(employeeSearchIndex.search("ang", 0, EmployeeServiceImpl.MAX_SEARCH_PAGE_SIZE)).willReturn(page);
+
+        //when - action or the behaviour that we are going to test
+        EmployeeSearchPage result = employeeService.searchEmployees("ang", 0, 1_000_000);
+
+        //then - verify the output
+        assertThat(result.getContent()).containsExactly(employee);
+    }
+
+
+    //JUnit test for getEmployeeJson method
+    @DisplayName("JUnit test for getEmployeeJson method")
+    @Test
+    public void givenEmployeeId_whenGetEmployeeJson_thenReturnBytesWithVersionETag() throws Exception {
+        //given - precondition or setup
+        employee.setVersion(3L);
+        byte[] json = "{\"id\":1}".getBytes();
+        given(employeeRepository.findDetachedById(employee.getId())).willReturn(Optional.of(employee));
+        given(objectMapper.writeValueAsBytes(employee)).willReturn(json);
+
+        //when - action or the behaviour that we are going to test
+        Optional<EmployeeJson> employeeJson = employeeService.getEmployeeJson(employee.getId());
+
+        //then - verify the output
+        assertThat(employeeJson.get().getBytes()).isSameAs(json);
+        assertThat(employeeJson.get().getEtag()).isEqualTo("\"" + employee.getId() + "-3\"");
+    }
+
+
+    //JUnit test for getEmployeeJson method with a buffered update
+    @DisplayName("JUnit test for getEmployeeJson method tagging an employee without version by its content")
+    @Test
+    public void givenEmployeeWithoutVersion_whenGetEmployeeJson_thenReturnContentETag() throws Exception {
+        //given - precondition or setup
+        employee.setVersion(null);
+        byte[] json = "{\"id\":1}".getBytes();
+        given(employeeRepository.findDetachedById(employee.getId())).willReturn(Optional.of(employee));
+        given(objectMapper.writeValueAsBytes(employee)).willReturn(json);
+
+        //when - action or the behaviour that we are going to test
+        Optional<EmployeeJson> employeeJson = employeeService.getEmployeeJson(employee.getId());
+
+        //then - verify the output
+        assertThat(employeeJson.get().getEtag())
+                .isEqualTo("\"" + employee.getId() + "-" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    //JUnit test for coalescing concurrent getEmployeeById calls
+    @DisplayName("JUnit test for getEmployeeById running one query for a burst of identical lookups")
+    @Test
+    public void givenBurstOfLookupsForSameId_whenGetEmployeeById_thenQueryOnce() throws Exception {
+        //given - precondition or setup
+        int callers = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        given(employeeRepository.findDetachedById(1L)).willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(employee);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        //when - action or the behaviour that we are going to test
+        List<Future<Optional<Employee>>> lookups = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            lookups.add(executor.submit(() -> employeeService.getEmployeeById(1L)));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (employeeService.getCoalescedLookups() < callers - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        release.countDown();
 
         //then - verify the output
-        verify(employeeRepository, times(1)).deleteById(employee.getId());
+        for (Future<Optional<Employee>> lookup : lookups) {
+            assertThat(lookup.get(5, TimeUnit.SECONDS)).get().extracting(Employee::getEmail).isEqualTo(employee.getEmail());
+        }
+        executor.shutdown();
+        assertThat(employeeService.getCoalescedLookups()).isEqualTo(callers - 1);
+        verify(employeeRepository, times(1)).findDetachedById(1L);
+    }
+
+
+    //JUnit test for deleteEmployee method with an unknown id
+    @DisplayName("JUnit test for deleteEmployee method reporting an unknown id")
+    @Test
+    public void givenUnknownEmployeeId_whenDeleteEmployee_thenReturnFalse() {
+        //given - precondition or setup
+        given(employeeRepository.deleteRowById(42L)).willReturn(0);
 
+        //when - action or the behaviour that we are going to test
+        boolean deleted = employeeService.deleteEmployee(42L);
+
+        //then - verify the output
+        assertThat(deleted).isFalse();
     }
 
+    //JUnit test for deleteEmployees method
+    @DisplayName("JUnit test for deleteEmployees method deleting distinct ids in chunks")
+    @Test
+    public void givenManyIds_whenDeleteEmployees_thenDeleteInChunksAndForgetIds() {
+        //given - precondition or setup
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            ids.add(id);
+        }
+        ids.add(1L);
+        List<Integer> chunkSizes = new ArrayList<>();
+        given(employeeRepository.deleteRowsByIdIn(any())).willAnswer(invocation -> {
+            Collection<Long> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return chunk.size();
+        });
+
+        //when - action or the behaviour that we are going to test
+        int deleted = employeeService.deleteEmployees(ids);
+
+        //then - verify the output
+        assertThat(deleted).isEqualTo(1200);
+        assertThat(chunkSizes).containsExactly(500, 500, 200);
+        verify(employeeEmailIndex).remove(1200L);
+        verify(employeeSearchIndex).remove(1200L);
+    }
+
+    //JUnit test for getEmployeeIdsByEmailDomain method
+    @DisplayName("JUnit test for getEmployeeIdsByEmailDomain method rejecting LIKE wildcards")
+    @Test
+    public void givenWildcardDomain_whenGetEmployeeIdsByEmailDomain_thenThrowsBadRequest() {
+        //given - precondition or setup
+        String emailDomain = "%";
+
+        //when - action or the behaviour that we are going to test
+        org.junit.jupiter.api.Assertions.assertThrows(BadRequestException.class,()->{
+            employeeService.getEmployeeIdsByEmailDomain(emailDomain);
+        });
+
+        //then - verify the output
+        verify(employeeRepository, never()).findIdsByEmailLike(any());
+    }
+
+
+    //JUnit test for deleteEmployee method with the change log
+    @DisplayName("JUnit test for deleteEmployee method recording the change after the delete")
+    @Test
+    public void givenChangeLog_whenDeleteEmployee_thenLockDeleteAndRecordDeleted() {
+        //given - precondition or setup
+        EmployeeChangeLog changeLog = mock(EmployeeChangeLog.class);
+        willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get()).given(changeLog).inTransaction(any());
+        employeeService.setChangeLog(changeLog);
+        given(changeLog.lock(List.of(employee.getId()))).willReturn(List.of(employee));
+        given(employeeRepository.deleteRowById(employee.getId())).willReturn(1);
+
+        //when - action or the behaviour that we are going to test
+        boolean deleted = employeeService.deleteEmployee(employee.getId());
+
+        //then - verify the output
+        assertThat(deleted).isTrue();
+        InOrder inOrder = inOrder(changeLog, employeeRepository);
+        inOrder.verify(changeLog).lock(List.of(employee.getId()));
+        inOrder.verify(employeeRepository).deleteRowById(employee.getId());
+        inOrder.verify(changeLog).recordDeleted(List.of(employee));
+    }
+
+    //JUnit test for deleteEmployee method with the change log
+    @DisplayName("JUnit test for deleteEmployee method not recording a delete that removed no row")
+    @Test
+    public void givenChangeLogAndUnknownId_whenDeleteEmployee_thenRecordNothing() {
+        //given - precondition or setup
+        EmployeeChangeLog changeLog = mock(EmployeeChangeLog.class);
+        willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get()).given(changeLog).inTransaction(any());
+        employeeService.setChangeLog(changeLog);
+        given(changeLog.lock(List.of(42L))).willReturn(List.of());
+        given(employeeRepository.deleteRowById(42L)).willReturn(0);
+
+        //when - action or the behaviour that we are going to test
+        boolean deleted = employeeService.deleteEmployee(42L);
+
+        //then - verify the output
+        assertThat(deleted).isFalse();
+        verify(changeLog, never()).recordDeleted(any());
+    }
+
+    //JUnit test for updateEmployee method with the change log
+    @DisplayName("JUnit test for updateEmployee method not recording an update that changed no row")
+    @Test
+    public void givenChangeLogAndUnknownId_whenUpdateEmployee_thenRecordNothing() {
+        //given - precondition or setup
+        EmployeeChangeLog changeLog = mock(EmployeeChangeLog.class);
+        willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get()).given(changeLog).inTransaction(any());
+        employeeService.setChangeLog(changeLog);
+        given(employeeRepository.updateById(42L, employee.getFirstName(), employee.getLastName(), employee.getEmail(), null))
+                .willReturn(0);
+
+        //when - action or the behaviour that we are going to test
+        Optional<Employee> updatedEmployee = employeeService.updateEmployee(42L, employee);
+
+        //then - verify the output
+        assertThat(updatedEmployee).isEmpty();
+        verify(changeLog, never()).record(any(), any());
+    }
+
+    //JUnit test for onUpdatesDropped method
+    @DisplayName("JUnit test for indexing the stored row again when its buffered update was dropped")
+    @Test
+    public void givenDroppedUpdate_whenOnUpdatesDropped_thenIndexStoredRow() {
+        //given - precondition or setup
+        Employee stored = employee.toBuilder().email("stored@gmail.com").build();
+        given(employeeRepository.findById(1L)).willReturn(Optional.of(stored));
+        given(employeeRepository.findById(2L)).willReturn(Optional.empty());
+
+        //when - action or the behaviour that we are going to test
+        employeeService.onUpdatesDropped(new EmployeeUpdatesDroppedEvent(List.of(1L, 2L)));
+
+        //then - verify the output
+        verify(employeeEmailIndex).put(1L, "stored@gmail.com", stored.getVersion());
+        verify(employeeSearchIndex).put(stored);
+        verify(employeeEmailIndex).remove(2L);
+        verify(employeeSearchIndex).remove(2L);
+    }
 
 }
@@ -0,0 +1,124 @@
+package com.toutsos.springboot.writebehind;
+
+import com.toutsos.springboot.model.Employee;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmployeeUpdateLogTests {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("JUnit test for replaying appended updates in order after a restart")
+    @Test
+    public void givenAppendedUpdates_whenReopened_thenReplayInOrder() throws IOException {
+        //given - precondition or setup
+        EmployeeUpdateLog updateLog = new EmployeeUpdateLog(directory);
+        updateLog.append(update(1L, "angelos@gmail.com"));
+        updateLog.seal();
+        updateLog.append(update(2L, "maria@gmail.com"));
+        updateLog.append(update(1L, "angelos.toutsios@gmail.com"));
+        updateLog.close();
+
+        //when - action or the behaviour that we are going to test
+        List<Employee> replayed = new ArrayList<>();
+        new EmployeeUpdateLog(directory).replay(replayed::add);
+
+        //then - verify the output
+        assertThat(replayed).extracting(Employee::getEmail)
+                .containsExactly("angelos@gmail.com", "maria@gmail.com", "angelos.toutsios@gmail.com");
+        assertThat(replayed.get(0).getFirstName()).isEqualTo("Angelos");
+    }
+
+    @DisplayName("JUnit test for ignoring a record torn by a crash")
+    @Test
+    public void givenTornLastRecord_whenReplay_thenSkipIt() throws IOException {
+        //given - precondition or setup
+        EmployeeUpdateLog updateLog = new EmployeeUpdateLog(directory);
+        updateLog.append(update(1L, "angelos@gmail.com"));
+        updateLog.close();
+        Path segment = segments().get(0);
+        byte[] record = EmployeeUpdateLog.encode(update(2L, "maria@gmail.com")).array();
+        Files.write(segment, Arrays.copyOf(record, record.length - 3), StandardOpenOption.APPEND);
+
+        //when - action or the behaviour that we are going to test
+        List<Employee> replayed = new ArrayList<>();
+        new EmployeeUpdateLog(directory).replay(replayed::add);
+
+        //then - verify the output
+        assertThat(replayed).extracting(Employee::getId).containsExactly(1L);
+    }
+
+    @DisplayName("JUnit test for deleting sealed segments once flushed")
+    @Test
+    public void givenSealedSegments_whenDeleted_thenOnlyCurrentSegmentRemains() throws IOException {
+        //given - precondition or setup
+        EmployeeUpdateLog updateLog = new EmployeeUpdateLog(directory);
+        updateLog.append(update(1L, "angelos@gmail.com"));
+
+        //when - action or the behaviour that we are going to test
+        List<Path> sealed = updateLog.seal();
+        updateLog.append(update(2L, "maria@gmail.com"));
+        updateLog.delete(sealed);
+
+        //then - verify the output
+        assertThat(sealed).hasSize(1);
+        assertThat(segments()).hasSize(1);
+        List<Employee> replayed = new ArrayList<>();
+        updateLog.replay(replayed::add);
+        assertThat(replayed).extracting(Employee::getId).containsExactly(2L);
+        updateLog.close();
+    }
+
+    @DisplayName("JUnit test for keeping only the unwritten updates of sealed segments")
+    @Test
+    public void givenSealedSegments_whenRewritten_thenReplayOnlyGivenUpdatesBeforeCurrent() throws IOException {
+        //given - precondition or setup
+        EmployeeUpdateLog updateLog = new EmployeeUpdateLog(directory);
+        updateLog.append(update(1L, "angelos@gmail.com"));
+        updateLog.seal();
+        updateLog.append(update(2L, "maria@gmail.com"));
+        List<Path> sealed = updateLog.seal();
+        updateLog.append(update(2L, "maria.papadopoulou@gmail.com"));
+
+        //when - action or the behaviour that we are going to test
+        updateLog.rewrite(sealed, List.of(update(2L, "maria@gmail.com")));
+        updateLog.close();
+
+        //then - verify the output
+        assertThat(sealed).hasSize(2);
+        assertThat(segments()).hasSize(2);
+        List<Employee> replayed = new ArrayList<>();
+        new EmployeeUpdateLog(directory).replay(replayed::add);
+        assertThat(replayed).extracting(Employee::getEmail)
+                .containsExactly("maria@gmail.com", "maria.papadopoulou@gmail.com");
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Employee update(long id, String email) {
+        return Employee.builder()
+                .id(id)
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email(email)
+                .build();
+    }
+}
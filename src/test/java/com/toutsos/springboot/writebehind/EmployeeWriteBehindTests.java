@@ -0,0 +1,200 @@
+package com.toutsos.springboot.writebehind;
+
+import com.toutsos.springboot.model.Employee;
+import com.toutsos.springboot.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class EmployeeWriteBehindTests {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private EmployeeWriteBehind writeBehind;
+
+    private Employee employee;
+
+    @BeforeEach
+    public void setup(){
+        writeBehind = create();
+        employee = Employee.builder()
+                .id(1L)
+                .firstName("Angelos")
+                .lastName("Toutsios")
+                .email("angelos.toutsios@gmail.com")
+                .version(4L)
+                .build();
+    }
+
+    @DisplayName("JUnit test for merging buffered updates of one employee into one write")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenTwoUpdatesForSameId_whenFlush_thenWriteLastOneOnce(){
+        //given - precondition or setup
+        given(employeeRepository.updateAll(anyList())).willReturn(new int[]{1});
+        writeBehind.accept(employee.toBuilder().email("first@gmail.com").build());
+        writeBehind.accept(employee.toBuilder().email("second@gmail.com").build());
+
+        //when - action or the behaviour that we are going to test
+        writeBehind.flush();
+
+        //then - verify the output
+        ArgumentCaptor<List<Employee>> batch = ArgumentCaptor.forClass(List.class);
+        verify(employeeRepository, times(1)).updateAll(batch.capture());
+        assertThat(batch.getValue()).extracting(Employee::getEmail).containsExactly("second@gmail.com");
+        verify(eventPublisher).publishEvent(any(EmployeeUpdatesFlushedEvent.class));
+        assertThat(writeBehind.getPending()).isZero();
+    }
+
+    @DisplayName("JUnit test for reads seeing an update that is not written yet")
+    @Test
+    public void givenBufferedUpdate_whenOverlay_thenReturnUpdatedFieldsWithoutVersion(){
+        //given - precondition or setup
+        writeBehind.accept(employee.toBuilder().firstName("Angelo").build());
+
+        //when - action or the behaviour that we are going to test
+        Employee seen = writeBehind.overlay(employee);
+
+        //then - verify the output
+        assertThat(seen.getFirstName()).isEqualTo("Angelo");
+        assertThat(seen.getVersion()).isNull();
+        verify(employeeRepository, never()).updateAll(anyList());
+    }
+
+    @DisplayName("JUnit test for keeping updates pending when the flush fails")
+    @Test
+    public void givenDatabaseDown_whenFlush_thenKeepUpdatePending(){
+        //given - precondition or setup
+        given(employeeRepository.updateAll(anyList()))
+                .willThrow(new DataAccessResourceFailureException("down"))
+                .willReturn(new int[]{1});
+        writeBehind.accept(employee.toBuilder().firstName("Angelo").build());
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(DataAccessResourceFailureException.class, () -> writeBehind.flush());
+
+        //then - verify the output
+        assertThat(writeBehind.getPending()).isEqualTo(1);
+        assertThat(writeBehind.overlay(employee).getFirstName()).isEqualTo("Angelo");
+        writeBehind.flush();
+        assertThat(writeBehind.getPending()).isZero();
+    }
+
+    @DisplayName("JUnit test for replaying acknowledged updates after a crash")
+    @Test
+    public void givenUnflushedUpdate_whenRestarted_thenReplayAndWriteIt(){
+        //given - precondition or setup
+        given(employeeRepository.updateAll(anyList())).willReturn(new int[]{1});
+        writeBehind.accept(employee.toBuilder().lastName("Toutsios-Papadopoulos").build());
+
+        //when - action or the behaviour that we are going to test
+        EmployeeWriteBehind restarted = create();
+
+        //then - verify the output
+        assertThat(restarted.getPending()).isEqualTo(1);
+        assertThat(restarted.overlay(employee).getLastName()).isEqualTo("Toutsios-Papadopoulos");
+        restarted.flush();
+        assertThat(restarted.getPending()).isZero();
+        assertThat(create().getPending()).isZero();
+    }
+
+    @DisplayName("JUnit test for counting an update of a deleted employee as dropped")
+    @Test
+    public void givenDeletedEmployee_whenFlush_thenCountDropped(){
+        //given - precondition or setup
+        given(employeeRepository.updateAll(anyList())).willReturn(new int[]{0});
+        writeBehind.accept(employee);
+
+        //when - action or the behaviour that we are going to test
+        writeBehind.flush();
+
+        //then - verify the output
+        assertThat(writeBehind.getDropped()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for publishing the ids of updates dropped for a taken email")
+    @Test
+    public void givenEmailTakenMeanwhile_whenFlush_thenPublishDroppedEvent(){
+        //given - precondition or setup
+        given(employeeRepository.updateAll(anyList()))
+                .willThrow(new DataIntegrityViolationException("ux_employees_email"));
+        writeBehind.accept(employee.toBuilder().email("taken@gmail.com").build());
+
+        //when - action or the behaviour that we are going to test
+        writeBehind.flush();
+
+        //then - verify the output
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues().get(1)).isInstanceOf(EmployeeUpdatesDroppedEvent.class);
+        assertThat(((EmployeeUpdatesDroppedEvent) events.getAllValues().get(1)).getIds()).containsExactly(1L);
+        assertThat(writeBehind.getDropped()).isEqualTo(1);
+        assertThat(writeBehind.overlay(employee).getEmail()).isEqualTo(employee.getEmail());
+    }
+
+    @DisplayName("JUnit test for re-queueing only the batches a failed flush did not commit")
+    @Test
+    public void givenSecondBatchFails_whenFlush_thenKeepOnlyItsUpdatesPending(){
+        //given - precondition or setup
+        writeBehind = create(1);
+        given(employeeRepository.updateAll(anyList()))
+                .willReturn(new int[]{1})
+                .willThrow(new DataAccessResourceFailureException("down"));
+        writeBehind.accept(employee.toBuilder().firstName("Angelo").build());
+        writeBehind.accept(employee.toBuilder().id(2L).email("maria@gmail.com").build());
+
+        //when - action or the behaviour that we are going to test
+        assertThrows(DataAccessResourceFailureException.class, () -> writeBehind.flush());
+
+        //then - verify the output
+        assertThat(writeBehind.getPending()).isEqualTo(1);
+        assertThat(writeBehind.overlay(employee).getFirstName()).isEqualTo("Angelos");
+        ArgumentCaptor<EmployeeUpdatesFlushedEvent> event = ArgumentCaptor.forClass(EmployeeUpdatesFlushedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getIds()).containsExactly(1L);
+        EmployeeWriteBehind restarted = create(1);
+        assertThat(restarted.getPending()).isEqualTo(1);
+        assertThat(restarted.overlay(employee.toBuilder().id(2L).build()).getEmail()).isEqualTo("maria@gmail.com");
+    }
+
+    private EmployeeWriteBehind create() {
+        return create(500);
+    }
+
+    private EmployeeWriteBehind create(int batchSize) {
+        return new EmployeeWriteBehind(new EmployeeUpdateLog(directory), employeeRepository, transactionManager,
+                eventPublisher, 1000, batchSize);
+    }
+}